@@ -1,6 +1,9 @@
 package com.isoft.reporting.config;
 
 import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.util.unit.DataSize;
+
+import java.time.Duration;
 
 /**
  * Properties specific to Reporting.
@@ -9,4 +12,391 @@ import org.springframework.boot.context.properties.ConfigurationProperties;
  * See {@link io.github.jhipster.config.JHipsterProperties} for a good example.
  */
 @ConfigurationProperties(prefix = "application", ignoreUnknownFields = false)
-public class ApplicationProperties {}
+public class ApplicationProperties {
+    private final Report report = new Report();
+
+    private final Export export = new Export();
+
+    public Report getReport() {
+        return report;
+    }
+
+    public Export getExport() {
+        return export;
+    }
+
+    public static class Report {
+        private final TemplateCache templateCache = new TemplateCache();
+
+        private final Jobs jobs = new Jobs();
+
+        private final Virtualizer virtualizer = new Virtualizer();
+
+        private final Scheduler scheduler = new Scheduler();
+
+        private final OutputCache outputCache = new OutputCache();
+
+        private final RunCache runCache = new RunCache();
+
+        public TemplateCache getTemplateCache() {
+            return templateCache;
+        }
+
+        public Jobs getJobs() {
+            return jobs;
+        }
+
+        public Virtualizer getVirtualizer() {
+            return virtualizer;
+        }
+
+        public Scheduler getScheduler() {
+            return scheduler;
+        }
+
+        public OutputCache getOutputCache() {
+            return outputCache;
+        }
+
+        public RunCache getRunCache() {
+            return runCache;
+        }
+
+        public static class TemplateCache {
+            private int maxEntries = 32;
+
+            public int getMaxEntries() {
+                return maxEntries;
+            }
+
+            public void setMaxEntries(int maxEntries) {
+                this.maxEntries = maxEntries;
+            }
+        }
+
+        public static class Jobs {
+            private int retentionSeconds = 3600;
+
+            public int getRetentionSeconds() {
+                return retentionSeconds;
+            }
+
+            public void setRetentionSeconds(int retentionSeconds) {
+                this.retentionSeconds = retentionSeconds;
+            }
+        }
+
+        public static class Virtualizer {
+            public enum Mode {
+                NONE,
+                SWAP_FILE,
+                GZIP
+            }
+
+            private Mode mode = Mode.SWAP_FILE;
+
+            private long rowThreshold = 50000;
+
+            private int maxSize = 100;
+
+            private String directory = System.getProperty("java.io.tmpdir");
+
+            private int blockSize = 4096;
+
+            private int minGrowCount = 100;
+
+            public Mode getMode() {
+                return mode;
+            }
+
+            public void setMode(Mode mode) {
+                this.mode = mode;
+            }
+
+            public long getRowThreshold() {
+                return rowThreshold;
+            }
+
+            public void setRowThreshold(long rowThreshold) {
+                this.rowThreshold = rowThreshold;
+            }
+
+            public int getMaxSize() {
+                return maxSize;
+            }
+
+            public void setMaxSize(int maxSize) {
+                this.maxSize = maxSize;
+            }
+
+            public String getDirectory() {
+                return directory;
+            }
+
+            public void setDirectory(String directory) {
+                this.directory = directory;
+            }
+
+            public int getBlockSize() {
+                return blockSize;
+            }
+
+            public void setBlockSize(int blockSize) {
+                this.blockSize = blockSize;
+            }
+
+            public int getMinGrowCount() {
+                return minGrowCount;
+            }
+
+            public void setMinGrowCount(int minGrowCount) {
+                this.minGrowCount = minGrowCount;
+            }
+        }
+
+        public static class Scheduler {
+            public enum Threads {
+                PLATFORM,
+                VIRTUAL
+            }
+
+            private Threads threads = Threads.PLATFORM;
+
+            private final Lane interactive = new Lane(4, 20);
+
+            private final Lane bulk = new Lane(2, 100);
+
+            private int retryAfterSeconds = 10;
+
+            private int exportThreads = 4;
+
+            public Threads getThreads() {
+                return threads;
+            }
+
+            public void setThreads(Threads threads) {
+                this.threads = threads;
+            }
+
+            public Lane getInteractive() {
+                return interactive;
+            }
+
+            public Lane getBulk() {
+                return bulk;
+            }
+
+            public int getRetryAfterSeconds() {
+                return retryAfterSeconds;
+            }
+
+            public void setRetryAfterSeconds(int retryAfterSeconds) {
+                this.retryAfterSeconds = retryAfterSeconds;
+            }
+
+            public int getExportThreads() {
+                return exportThreads;
+            }
+
+            public void setExportThreads(int exportThreads) {
+                this.exportThreads = exportThreads;
+            }
+
+            public static class Lane {
+                private int concurrency;
+
+                private int queueCapacity;
+
+                public Lane(int concurrency, int queueCapacity) {
+                    this.concurrency = concurrency;
+                    this.queueCapacity = queueCapacity;
+                }
+
+                public int getConcurrency() {
+                    return concurrency;
+                }
+
+                public void setConcurrency(int concurrency) {
+                    this.concurrency = concurrency;
+                }
+
+                public int getQueueCapacity() {
+                    return queueCapacity;
+                }
+
+                public void setQueueCapacity(int queueCapacity) {
+                    this.queueCapacity = queueCapacity;
+                }
+            }
+        }
+
+        public static class OutputCache {
+            private boolean enabled = true;
+
+            private DataSize maxMemory = DataSize.ofMegabytes(32);
+
+            private DataSize maxDisk = DataSize.ofMegabytes(256);
+
+            private DataSize maxEntry = DataSize.ofMegabytes(8);
+
+            private String directory = System.getProperty("java.io.tmpdir");
+
+            private int timeToLiveSeconds = 300;
+
+            public boolean isEnabled() {
+                return enabled;
+            }
+
+            public void setEnabled(boolean enabled) {
+                this.enabled = enabled;
+            }
+
+            public DataSize getMaxMemory() {
+                return maxMemory;
+            }
+
+            public void setMaxMemory(DataSize maxMemory) {
+                this.maxMemory = maxMemory;
+            }
+
+            public DataSize getMaxDisk() {
+                return maxDisk;
+            }
+
+            public void setMaxDisk(DataSize maxDisk) {
+                this.maxDisk = maxDisk;
+            }
+
+            public DataSize getMaxEntry() {
+                return maxEntry;
+            }
+
+            public void setMaxEntry(DataSize maxEntry) {
+                this.maxEntry = maxEntry;
+            }
+
+            public String getDirectory() {
+                return directory;
+            }
+
+            public void setDirectory(String directory) {
+                this.directory = directory;
+            }
+
+            public int getTimeToLiveSeconds() {
+                return timeToLiveSeconds;
+            }
+
+            public void setTimeToLiveSeconds(int timeToLiveSeconds) {
+                this.timeToLiveSeconds = timeToLiveSeconds;
+            }
+        }
+
+        public static class RunCache {
+            private boolean enabled = true;
+
+            private DataSize maxDisk = DataSize.ofMegabytes(512);
+
+            private String directory = System.getProperty("java.io.tmpdir");
+
+            private int timeToLiveSeconds = 300;
+
+            public boolean isEnabled() {
+                return enabled;
+            }
+
+            public void setEnabled(boolean enabled) {
+                this.enabled = enabled;
+            }
+
+            public DataSize getMaxDisk() {
+                return maxDisk;
+            }
+
+            public void setMaxDisk(DataSize maxDisk) {
+                this.maxDisk = maxDisk;
+            }
+
+            public String getDirectory() {
+                return directory;
+            }
+
+            public void setDirectory(String directory) {
+                this.directory = directory;
+            }
+
+            public int getTimeToLiveSeconds() {
+                return timeToLiveSeconds;
+            }
+
+            public void setTimeToLiveSeconds(int timeToLiveSeconds) {
+                this.timeToLiveSeconds = timeToLiveSeconds;
+            }
+        }
+    }
+
+    public static class Export {
+        private int batchSize = 1000;
+
+        private int fetchSize = 500;
+
+        private Duration streamTimeout = Duration.ofHours(1);
+
+        private final Csv csv = new Csv();
+
+        public int getBatchSize() {
+            return batchSize;
+        }
+
+        public void setBatchSize(int batchSize) {
+            this.batchSize = batchSize;
+        }
+
+        public int getFetchSize() {
+            return fetchSize;
+        }
+
+        public void setFetchSize(int fetchSize) {
+            this.fetchSize = fetchSize;
+        }
+
+        public Duration getStreamTimeout() {
+            return streamTimeout;
+        }
+
+        public void setStreamTimeout(Duration streamTimeout) {
+            this.streamTimeout = streamTimeout;
+        }
+
+        public Csv getCsv() {
+            return csv;
+        }
+
+        public static class Csv {
+            public enum QuoteMode {
+                MINIMAL,
+                ALL
+            }
+
+            private char delimiter = ',';
+
+            private QuoteMode quoteMode = QuoteMode.MINIMAL;
+
+            public char getDelimiter() {
+                return delimiter;
+            }
+
+            public void setDelimiter(char delimiter) {
+                this.delimiter = delimiter;
+            }
+
+            public QuoteMode getQuoteMode() {
+                return quoteMode;
+            }
+
+            public void setQuoteMode(QuoteMode quoteMode) {
+                this.quoteMode = quoteMode;
+            }
+        }
+    }
+}
@@ -1,7 +1,9 @@
 package com.isoft.reporting.config;
 
 import io.github.jhipster.async.ExceptionHandlingAsyncTaskExecutor;
+import java.util.Optional;
 import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.aop.interceptor.AsyncUncaughtExceptionHandler;
@@ -9,21 +11,27 @@ import org.springframework.aop.interceptor.SimpleAsyncUncaughtExceptionHandler;
 import org.springframework.boot.autoconfigure.task.TaskExecutionProperties;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.core.task.support.TaskExecutorAdapter;
 import org.springframework.scheduling.annotation.AsyncConfigurer;
 import org.springframework.scheduling.annotation.EnableAsync;
 import org.springframework.scheduling.annotation.EnableScheduling;
 import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.web.servlet.config.annotation.AsyncSupportConfigurer;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
 
 @Configuration
 @EnableAsync
 @EnableScheduling
-public class AsyncConfiguration implements AsyncConfigurer {
+public class AsyncConfiguration implements AsyncConfigurer, WebMvcConfigurer {
     private final Logger log = LoggerFactory.getLogger(AsyncConfiguration.class);
 
     private final TaskExecutionProperties taskExecutionProperties;
 
-    public AsyncConfiguration(TaskExecutionProperties taskExecutionProperties) {
+    private final ApplicationProperties applicationProperties;
+
+    public AsyncConfiguration(TaskExecutionProperties taskExecutionProperties, ApplicationProperties applicationProperties) {
         this.taskExecutionProperties = taskExecutionProperties;
+        this.applicationProperties = applicationProperties;
     }
 
     @Override
@@ -42,4 +50,19 @@ public class AsyncConfiguration implements AsyncConfigurer {
     public AsyncUncaughtExceptionHandler getAsyncUncaughtExceptionHandler() {
         return new SimpleAsyncUncaughtExceptionHandler();
     }
+
+    @Override
+    public void configureAsyncSupport(AsyncSupportConfigurer configurer) {
+        // Streamed exports of whole tables outlast the default timeout of the servlet container.
+        configurer.setDefaultTimeout(applicationProperties.getExport().getStreamTimeout().toMillis());
+        if (applicationProperties.getReport().getScheduler().getThreads() != ApplicationProperties.Report.Scheduler.Threads.VIRTUAL) {
+            return;
+        }
+        // Streamed report exports mostly wait on the client, so they run on virtual threads as well.
+        Optional<ExecutorService> executor = VirtualThreads.newThreadPerTaskExecutor("reporting-stream-");
+        if (executor.isPresent()) {
+            log.debug("Streaming responses on virtual threads");
+            configurer.setTaskExecutor(new TaskExecutorAdapter(executor.get()));
+        }
+    }
 }
@@ -0,0 +1,52 @@
+package com.isoft.reporting.config;
+
+import com.isoft.reporting.service.ReportTemplateRegistry;
+import com.isoft.reporting.service.report.FilterClauseFunction;
+import com.isoft.reporting.service.report.PrefetchingQueryExecuterFactory;
+import com.isoft.reporting.service.report.TemplateRepositoryService;
+import net.sf.jasperreports.engine.DefaultJasperReportsContext;
+import net.sf.jasperreports.engine.JasperReportsContext;
+import net.sf.jasperreports.engine.SimpleJasperReportsContext;
+import net.sf.jasperreports.engine.query.JRJdbcQueryExecuterFactory;
+import net.sf.jasperreports.engine.query.JRQueryExecuterFactoryBundle;
+import net.sf.jasperreports.engine.query.QueryClauseFunctionBundle;
+import net.sf.jasperreports.engine.query.QueryExecuterFactory;
+import net.sf.jasperreports.repo.RepositoryService;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.Collections;
+
+/**
+ * Configuration of the JasperReports context reports are filled with.
+ */
+@Configuration
+public class JasperReportsConfiguration {
+
+    @Bean
+    public JasperReportsContext jasperReportsContext(ReportTemplateRegistry templateRegistry) {
+        SimpleJasperReportsContext context = new SimpleJasperReportsContext(DefaultJasperReportsContext.getInstance());
+        // SQL queries go through the prefetching factory, which behaves as the default one unless a dataset opts in.
+        PrefetchingQueryExecuterFactory sqlQueryExecuterFactory = new PrefetchingQueryExecuterFactory();
+        context.setExtensions(JRQueryExecuterFactoryBundle.class, Collections.singletonList(new JRQueryExecuterFactoryBundle() {
+            @Override
+            public String[] getLanguages() {
+                return new String[] { JRJdbcQueryExecuterFactory.QUERY_LANGUAGE_SQL };
+            }
+
+            @Override
+            public QueryExecuterFactory getQueryExecuterFactory(String language) {
+                return JRJdbcQueryExecuterFactory.QUERY_LANGUAGE_SQL.equalsIgnoreCase(language) ? sqlQueryExecuterFactory : null;
+            }
+        }));
+        FilterClauseFunction filterClauseFunction = new FilterClauseFunction();
+        context.setExtensions(QueryClauseFunctionBundle.class, Collections.singletonList((QueryClauseFunctionBundle) (language, function) ->
+            JRJdbcQueryExecuterFactory.QUERY_LANGUAGE_SQL.equalsIgnoreCase(language) && FilterClauseFunction.CLAUSE_ID.equals(function)
+                ? filterClauseFunction
+                : null
+        ));
+        // Sub-reports are served from the template cache by their logical name, not read from the file system.
+        context.setExtensions(RepositoryService.class, Collections.singletonList(new TemplateRepositoryService(templateRegistry)));
+        return context;
+    }
+}
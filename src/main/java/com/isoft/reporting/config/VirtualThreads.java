@@ -0,0 +1,55 @@
+package com.isoft.reporting.config;
+
+import java.lang.reflect.Method;
+import java.util.Optional;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+
+/**
+ * Creates executors running each task on a new virtual thread.
+ * <p>
+ * The application is built for Java 8, so virtual threads are looked up reflectively and are only available when it
+ * runs on Java 21 or later.
+ */
+public final class VirtualThreads {
+
+    private VirtualThreads() {}
+
+    /**
+     * Check whether the running JVM supports virtual threads.
+     *
+     * @return {@code true} if virtual threads are available.
+     */
+    public static boolean isSupported() {
+        return newThreadFactory("probe-").isPresent();
+    }
+
+    /**
+     * Create an executor starting a new virtual thread for each task.
+     *
+     * @param namePrefix the prefix of the thread names.
+     * @return the executor, or empty if the running JVM does not support virtual threads.
+     */
+    public static Optional<ExecutorService> newThreadPerTaskExecutor(String namePrefix) {
+        return newThreadFactory(namePrefix).map(threadFactory -> {
+            try {
+                Method newThreadPerTaskExecutor = Executors.class.getMethod("newThreadPerTaskExecutor", ThreadFactory.class);
+                return (ExecutorService) newThreadPerTaskExecutor.invoke(null, threadFactory);
+            } catch (ReflectiveOperationException e) {
+                throw new IllegalStateException("Could not create virtual thread executor", e);
+            }
+        });
+    }
+
+    private static Optional<ThreadFactory> newThreadFactory(String namePrefix) {
+        try {
+            Class<?> builderClass = Class.forName("java.lang.Thread$Builder");
+            Object builder = Thread.class.getMethod("ofVirtual").invoke(null);
+            builder = builderClass.getMethod("name", String.class, long.class).invoke(builder, namePrefix, 0L);
+            return Optional.of((ThreadFactory) builderClass.getMethod("factory").invoke(builder));
+        } catch (ReflectiveOperationException | LinkageError e) {
+            return Optional.empty();
+        }
+    }
+}
@@ -27,7 +27,7 @@ public class Email implements Serializable {
     @Column(name = "address")
     private String address;
 
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     @JsonIgnoreProperties("emails")
     private Employee employee;
 
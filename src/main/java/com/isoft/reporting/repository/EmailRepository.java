@@ -1,7 +1,10 @@
 package com.isoft.reporting.repository;
 
 import com.isoft.reporting.domain.Email;
+import com.isoft.reporting.service.dto.EmailDTO;
 
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.*;
 import org.springframework.stereotype.Repository;
 
@@ -11,4 +14,8 @@ import org.springframework.stereotype.Repository;
 @SuppressWarnings("unused")
 @Repository
 public interface EmailRepository extends JpaRepository<Email, Long>, JpaSpecificationExecutor<Email> {
+
+    @Query(value = "select new com.isoft.reporting.service.dto.EmailDTO(email.id, email.address, email.employee.id) from Email email",
+        countQuery = "select count(email) from Email email")
+    Page<EmailDTO> findAllProjectedBy(Pageable pageable);
 }
@@ -1,7 +1,10 @@
 package com.isoft.reporting.repository;
 
 import com.isoft.reporting.domain.Employee;
+import com.isoft.reporting.service.dto.EmployeeDTO;
 
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.*;
 import org.springframework.stereotype.Repository;
 
@@ -11,4 +14,8 @@ import org.springframework.stereotype.Repository;
 @SuppressWarnings("unused")
 @Repository
 public interface EmployeeRepository extends JpaRepository<Employee, Long>, JpaSpecificationExecutor<Employee> {
+
+    @Query(value = "select new com.isoft.reporting.service.dto.EmployeeDTO(employee.id, employee.firstName, employee.lastName, employee.salary) from Employee employee",
+        countQuery = "select count(employee) from Employee employee")
+    Page<EmployeeDTO> findAllProjectedBy(Pageable pageable);
 }
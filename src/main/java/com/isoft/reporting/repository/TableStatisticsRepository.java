@@ -0,0 +1,53 @@
+package com.isoft.reporting.repository;
+
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+import java.util.OptionalLong;
+
+/**
+ * Repository reading the planner statistics of the database, which estimate the size of tables without scanning them.
+ * <p>
+ * Only PostgreSQL is supported. Its estimates are as recent as the last {@code ANALYZE} of the table, usually run by
+ * autovacuum, and are missing for tables which were never analyzed.
+ */
+@Repository
+public class TableStatisticsRepository {
+
+    private final JdbcTemplate jdbcTemplate;
+
+    private volatile Boolean postgreSql;
+
+    public TableStatisticsRepository(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    /**
+     * Estimate the number of rows of a table.
+     *
+     * @param table the name of the table, resolved with the search path of the connection.
+     * @return the estimated number of rows, or empty if the database has no estimate.
+     */
+    public OptionalLong estimateRowCount(String table) {
+        if (!isPostgreSql()) {
+            return OptionalLong.empty();
+        }
+        List<Double> rows = jdbcTemplate.queryForList("select reltuples from pg_class where oid = to_regclass(?)", Double.class, table);
+        // PostgreSQL 14 and later report -1 for tables which were never analyzed.
+        if (rows.isEmpty() || rows.get(0) == null || rows.get(0) < 0) {
+            return OptionalLong.empty();
+        }
+        return OptionalLong.of(Math.round(rows.get(0)));
+    }
+
+    private boolean isPostgreSql() {
+        Boolean result = postgreSql;
+        if (result == null) {
+            result = "PostgreSQL".equals(jdbcTemplate.execute((ConnectionCallback<String>) connection -> connection.getMetaData().getDatabaseProductName()));
+            postgreSql = result;
+        }
+        return result;
+    }
+}
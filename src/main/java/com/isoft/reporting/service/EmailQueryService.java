@@ -1,45 +1,68 @@
 package com.isoft.reporting.service;
 
+import java.util.Iterator;
 import java.util.List;
+import java.util.OptionalLong;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
 
-import javax.persistence.criteria.JoinType;
+import javax.persistence.EntityManager;
+import javax.persistence.criteria.CriteriaBuilder;
+import javax.persistence.criteria.CriteriaQuery;
+import javax.persistence.criteria.Predicate;
+import javax.persistence.criteria.Root;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.jpa.domain.Specification;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import io.github.jhipster.service.QueryService;
 
+import com.isoft.reporting.config.ApplicationProperties;
 import com.isoft.reporting.domain.Email;
 import com.isoft.reporting.domain.*; // for static metamodels
 import com.isoft.reporting.repository.EmailRepository;
+import com.isoft.reporting.repository.TableStatisticsRepository;
 import com.isoft.reporting.service.dto.EmailCriteria;
 import com.isoft.reporting.service.dto.EmailDTO;
-import com.isoft.reporting.service.mapper.EmailMapper;
 
 /**
  * Service for executing complex queries for {@link Email} entities in the database.
  * The main input is a {@link EmailCriteria} which gets converted to {@link Specification},
  * in a way that all the filters must apply.
- * It returns a {@link List} of {@link EmailDTO} or a {@link Page} of {@link EmailDTO} which fulfills the criteria.
+ * It returns a {@link List}, a {@link Page}, a {@link Slice} or a {@link KeysetSlice} of {@link EmailDTO}
+ * which fulfills the criteria.
  */
 @Service
 @Transactional(readOnly = true)
 public class EmailQueryService extends QueryService<Email> {
 
+    // The DTOs are read with a constructor projection, without loading and mapping the entities.
+    private static final ProjectionQuery<Email, EmailDTO> DTO_PROJECTION = new ProjectionQuery<>(Email.class, EmailDTO.class,
+        (builder, root) -> builder.construct(EmailDTO.class, root.get(Email_.id), root.get(Email_.address),
+            root.get(Email_.employee).get(Employee_.id)));
+
     private final Logger log = LoggerFactory.getLogger(EmailQueryService.class);
 
     private final EmailRepository emailRepository;
 
-    private final EmailMapper emailMapper;
+    private final EntityManager entityManager;
+
+    private final TableStatisticsRepository tableStatisticsRepository;
+
+    private final ApplicationProperties applicationProperties;
 
-    public EmailQueryService(EmailRepository emailRepository, EmailMapper emailMapper) {
+    public EmailQueryService(EmailRepository emailRepository, EntityManager entityManager,
+        TableStatisticsRepository tableStatisticsRepository, ApplicationProperties applicationProperties) {
         this.emailRepository = emailRepository;
-        this.emailMapper = emailMapper;
+        this.entityManager = entityManager;
+        this.tableStatisticsRepository = tableStatisticsRepository;
+        this.applicationProperties = applicationProperties;
     }
 
     /**
@@ -51,7 +74,7 @@ public class EmailQueryService extends QueryService<Email> {
     public List<EmailDTO> findByCriteria(EmailCriteria criteria) {
         log.debug("find by criteria : {}", criteria);
         final Specification<Email> specification = createSpecification(criteria);
-        return emailMapper.toDto(emailRepository.findAll(specification));
+        return DTO_PROJECTION.findAll(entityManager, specification);
     }
 
     /**
@@ -64,8 +87,58 @@ public class EmailQueryService extends QueryService<Email> {
     public Page<EmailDTO> findByCriteria(EmailCriteria criteria, Pageable page) {
         log.debug("find by criteria : {}, page: {}", criteria, page);
         final Specification<Email> specification = createSpecification(criteria);
-        return emailRepository.findAll(specification, page)
-            .map(emailMapper::toDto);
+        return DTO_PROJECTION.findPage(entityManager, specification, page, () -> emailRepository.count(specification));
+    }
+
+    /**
+     * Return a {@link Slice} of {@link EmailDTO} which matches the criteria from the database, without counting the
+     * matching entities.
+     * @param criteria The object which holds all the filters, which the entities should match.
+     * @param page The page, which should be returned.
+     * @return the matching entities.
+     */
+    @Transactional(readOnly = true)
+    public Slice<EmailDTO> findSliceByCriteria(EmailCriteria criteria, Pageable page) {
+        log.debug("find slice by criteria : {}, page: {}", criteria, page);
+        final Specification<Email> specification = createSpecification(criteria);
+        return DTO_PROJECTION.findSlice(entityManager, specification, page);
+    }
+
+    /**
+     * Return a {@link KeysetSlice} of {@link EmailDTO} which matches the criteria from the database, starting after a cursor
+     * instead of an offset, without counting the matching entities.
+     * @param criteria The object which holds all the filters, which the entities should match.
+     * @param after The cursor from the previous slice, or empty for the first slice.
+     * @param page The size and sort of the slice, which sorts by at most one property besides the id.
+     * @return the matching entities.
+     * @throws IllegalArgumentException if the cursor or the sort is not valid.
+     */
+    @Transactional(readOnly = true)
+    public KeysetSlice<EmailDTO> findByCriteria(EmailCriteria criteria, String after, Pageable page) {
+        log.debug("find by criteria : {}, after: {}, page: {}", criteria, after, page);
+        final Specification<Email> specification = createSpecification(criteria);
+        return KeysetQuery.find(entityManager, DTO_PROJECTION, Email_.id, specification, after, page);
+    }
+
+    /**
+     * Pass each {@link EmailDTO} which matches the criteria from the database to a consumer, reading them forward only
+     * from a database cursor, in constant memory. The transaction and its connection are held until all the entities
+     * are consumed.
+     * @param criteria The object which holds all the filters, which the entities should match.
+     * @param consumer The consumer of the matching entities.
+     * @return the number of matching entities.
+     */
+    @Transactional(readOnly = true)
+    public long streamByCriteria(EmailCriteria criteria, Consumer<EmailDTO> consumer) {
+        log.debug("stream by criteria : {}", criteria);
+        final Specification<Email> specification = createSpecification(criteria);
+        long count = 0;
+        try (Stream<EmailDTO> stream = DTO_PROJECTION.stream(entityManager, specification, applicationProperties.getExport().getFetchSize())) {
+            for (Iterator<EmailDTO> iterator = stream.iterator(); iterator.hasNext(); count++) {
+                consumer.accept(iterator.next());
+            }
+        }
+        return count;
     }
 
     /**
@@ -80,6 +153,52 @@ public class EmailQueryService extends QueryService<Email> {
         return emailRepository.count(specification);
     }
 
+    /**
+     * Return the estimated number of matching entities, read from the statistics of the database instead of counting them.
+     * @param criteria The object which holds all the filters, which the entities should match.
+     * @return the estimated number of matching entities, or empty if there is no estimate, which is always the case
+     * when the criteria filter the entities.
+     */
+    @Transactional(readOnly = true)
+    public OptionalLong estimateCountByCriteria(EmailCriteria criteria) {
+        if (criteria != null && !criteria.equals(new EmailCriteria())) {
+            return OptionalLong.empty();
+        }
+        return tableStatisticsRepository.estimateRowCount("email");
+    }
+
+    /**
+     * Return the columns of the entities which match the criteria from the database, one batch at a time in id order.
+     * Only the columns are read, no entity is loaded, so that large extracts can be read in constant memory.
+     * @param criteria The object which holds all the filters, which the entities should match.
+     * @param afterId The id of the last entity of the previous batch, or {@code null} for the first batch.
+     * @param limit The maximum number of entities in the batch.
+     * @return the id, address and employee id of the matching entities.
+     */
+    @Transactional(readOnly = true)
+    public List<Object[]> findColumnsByCriteria(EmailCriteria criteria, Long afterId, int limit) {
+        log.debug("find columns by criteria : {}, after id: {}", criteria, afterId);
+        Specification<Email> specification = createSpecification(criteria);
+        if (afterId != null) {
+            specification = specification.and((root, query, builder) -> builder.greaterThan(root.get(Email_.id), afterId));
+        }
+        CriteriaBuilder builder = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Object[]> query = builder.createQuery(Object[].class);
+        Root<Email> root = query.from(Email.class);
+        query.multiselect(
+            root.get(Email_.id),
+            root.get(Email_.address),
+            // The employee id is read from the foreign key, without joining the employees.
+            root.get(Email_.employee).get(Employee_.id)
+        );
+        Predicate predicate = specification.toPredicate(root, query, builder);
+        if (predicate != null) {
+            query.where(predicate);
+        }
+        query.orderBy(builder.asc(root.get(Email_.id)));
+        return entityManager.createQuery(query).setMaxResults(limit).getResultList();
+    }
+
     /**
      * Function to convert {@link EmailCriteria} to a {@link Specification}
      * @param criteria The object which holds all the filters, which the entities should match.
@@ -96,7 +215,7 @@ public class EmailQueryService extends QueryService<Email> {
             }
             if (criteria.getEmployeeId() != null) {
                 specification = specification.and(buildSpecification(criteria.getEmployeeId(),
-                    root -> root.join(Email_.employee, JoinType.LEFT).get(Employee_.id)));
+                    root -> root.get(Email_.employee).get(Employee_.id)));
             }
         }
         return specification;
@@ -1,45 +1,69 @@
 package com.isoft.reporting.service;
 
+import java.util.Iterator;
 import java.util.List;
+import java.util.OptionalLong;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
 
+import javax.persistence.EntityManager;
+import javax.persistence.criteria.CriteriaBuilder;
+import javax.persistence.criteria.CriteriaQuery;
 import javax.persistence.criteria.JoinType;
+import javax.persistence.criteria.Predicate;
+import javax.persistence.criteria.Root;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.jpa.domain.Specification;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import io.github.jhipster.service.QueryService;
 
+import com.isoft.reporting.config.ApplicationProperties;
 import com.isoft.reporting.domain.Employee;
 import com.isoft.reporting.domain.*; // for static metamodels
 import com.isoft.reporting.repository.EmployeeRepository;
+import com.isoft.reporting.repository.TableStatisticsRepository;
 import com.isoft.reporting.service.dto.EmployeeCriteria;
 import com.isoft.reporting.service.dto.EmployeeDTO;
-import com.isoft.reporting.service.mapper.EmployeeMapper;
 
 /**
  * Service for executing complex queries for {@link Employee} entities in the database.
  * The main input is a {@link EmployeeCriteria} which gets converted to {@link Specification},
  * in a way that all the filters must apply.
- * It returns a {@link List} of {@link EmployeeDTO} or a {@link Page} of {@link EmployeeDTO} which fulfills the criteria.
+ * It returns a {@link List}, a {@link Page}, a {@link Slice} or a {@link KeysetSlice} of {@link EmployeeDTO}
+ * which fulfills the criteria.
  */
 @Service
 @Transactional(readOnly = true)
 public class EmployeeQueryService extends QueryService<Employee> {
 
+    // The DTOs are read with a constructor projection, without loading and mapping the entities.
+    private static final ProjectionQuery<Employee, EmployeeDTO> DTO_PROJECTION = new ProjectionQuery<>(Employee.class, EmployeeDTO.class,
+        (builder, root) -> builder.construct(EmployeeDTO.class, root.get(Employee_.id), root.get(Employee_.firstName),
+            root.get(Employee_.lastName), root.get(Employee_.salary)));
+
     private final Logger log = LoggerFactory.getLogger(EmployeeQueryService.class);
 
     private final EmployeeRepository employeeRepository;
 
-    private final EmployeeMapper employeeMapper;
+    private final EntityManager entityManager;
+
+    private final TableStatisticsRepository tableStatisticsRepository;
+
+    private final ApplicationProperties applicationProperties;
 
-    public EmployeeQueryService(EmployeeRepository employeeRepository, EmployeeMapper employeeMapper) {
+    public EmployeeQueryService(EmployeeRepository employeeRepository, EntityManager entityManager,
+        TableStatisticsRepository tableStatisticsRepository, ApplicationProperties applicationProperties) {
         this.employeeRepository = employeeRepository;
-        this.employeeMapper = employeeMapper;
+        this.entityManager = entityManager;
+        this.tableStatisticsRepository = tableStatisticsRepository;
+        this.applicationProperties = applicationProperties;
     }
 
     /**
@@ -51,7 +75,7 @@ public class EmployeeQueryService extends QueryService<Employee> {
     public List<EmployeeDTO> findByCriteria(EmployeeCriteria criteria) {
         log.debug("find by criteria : {}", criteria);
         final Specification<Employee> specification = createSpecification(criteria);
-        return employeeMapper.toDto(employeeRepository.findAll(specification));
+        return DTO_PROJECTION.findAll(entityManager, specification);
     }
 
     /**
@@ -64,8 +88,58 @@ public class EmployeeQueryService extends QueryService<Employee> {
     public Page<EmployeeDTO> findByCriteria(EmployeeCriteria criteria, Pageable page) {
         log.debug("find by criteria : {}, page: {}", criteria, page);
         final Specification<Employee> specification = createSpecification(criteria);
-        return employeeRepository.findAll(specification, page)
-            .map(employeeMapper::toDto);
+        return DTO_PROJECTION.findPage(entityManager, specification, page, () -> employeeRepository.count(specification));
+    }
+
+    /**
+     * Return a {@link Slice} of {@link EmployeeDTO} which matches the criteria from the database, without counting the
+     * matching entities.
+     * @param criteria The object which holds all the filters, which the entities should match.
+     * @param page The page, which should be returned.
+     * @return the matching entities.
+     */
+    @Transactional(readOnly = true)
+    public Slice<EmployeeDTO> findSliceByCriteria(EmployeeCriteria criteria, Pageable page) {
+        log.debug("find slice by criteria : {}, page: {}", criteria, page);
+        final Specification<Employee> specification = createSpecification(criteria);
+        return DTO_PROJECTION.findSlice(entityManager, specification, page);
+    }
+
+    /**
+     * Return a {@link KeysetSlice} of {@link EmployeeDTO} which matches the criteria from the database, starting after a cursor
+     * instead of an offset, without counting the matching entities.
+     * @param criteria The object which holds all the filters, which the entities should match.
+     * @param after The cursor from the previous slice, or empty for the first slice.
+     * @param page The size and sort of the slice, which sorts by at most one property besides the id.
+     * @return the matching entities.
+     * @throws IllegalArgumentException if the cursor or the sort is not valid.
+     */
+    @Transactional(readOnly = true)
+    public KeysetSlice<EmployeeDTO> findByCriteria(EmployeeCriteria criteria, String after, Pageable page) {
+        log.debug("find by criteria : {}, after: {}, page: {}", criteria, after, page);
+        final Specification<Employee> specification = createSpecification(criteria);
+        return KeysetQuery.find(entityManager, DTO_PROJECTION, Employee_.id, specification, after, page);
+    }
+
+    /**
+     * Pass each {@link EmployeeDTO} which matches the criteria from the database to a consumer, reading them forward only
+     * from a database cursor, in constant memory. The transaction and its connection are held until all the entities
+     * are consumed.
+     * @param criteria The object which holds all the filters, which the entities should match.
+     * @param consumer The consumer of the matching entities.
+     * @return the number of matching entities.
+     */
+    @Transactional(readOnly = true)
+    public long streamByCriteria(EmployeeCriteria criteria, Consumer<EmployeeDTO> consumer) {
+        log.debug("stream by criteria : {}", criteria);
+        final Specification<Employee> specification = createSpecification(criteria);
+        long count = 0;
+        try (Stream<EmployeeDTO> stream = DTO_PROJECTION.stream(entityManager, specification, applicationProperties.getExport().getFetchSize())) {
+            for (Iterator<EmployeeDTO> iterator = stream.iterator(); iterator.hasNext(); count++) {
+                consumer.accept(iterator.next());
+            }
+        }
+        return count;
     }
 
     /**
@@ -80,6 +154,52 @@ public class EmployeeQueryService extends QueryService<Employee> {
         return employeeRepository.count(specification);
     }
 
+    /**
+     * Return the estimated number of matching entities, read from the statistics of the database instead of counting them.
+     * @param criteria The object which holds all the filters, which the entities should match.
+     * @return the estimated number of matching entities, or empty if there is no estimate, which is always the case
+     * when the criteria filter the entities.
+     */
+    @Transactional(readOnly = true)
+    public OptionalLong estimateCountByCriteria(EmployeeCriteria criteria) {
+        if (criteria != null && !criteria.equals(new EmployeeCriteria())) {
+            return OptionalLong.empty();
+        }
+        return tableStatisticsRepository.estimateRowCount("employee");
+    }
+
+    /**
+     * Return the columns of the entities which match the criteria from the database, one batch at a time in id order.
+     * Only the columns are read, no entity is loaded, so that large extracts can be read in constant memory.
+     * @param criteria The object which holds all the filters, which the entities should match.
+     * @param afterId The id of the last entity of the previous batch, or {@code null} for the first batch.
+     * @param limit The maximum number of entities in the batch.
+     * @return the id, first name, last name and salary of the matching entities.
+     */
+    @Transactional(readOnly = true)
+    public List<Object[]> findColumnsByCriteria(EmployeeCriteria criteria, Long afterId, int limit) {
+        log.debug("find columns by criteria : {}, after id: {}", criteria, afterId);
+        Specification<Employee> specification = createSpecification(criteria);
+        if (afterId != null) {
+            specification = specification.and((root, query, builder) -> builder.greaterThan(root.get(Employee_.id), afterId));
+        }
+        CriteriaBuilder builder = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Object[]> query = builder.createQuery(Object[].class);
+        Root<Employee> root = query.from(Employee.class);
+        query.multiselect(
+            root.get(Employee_.id),
+            root.get(Employee_.firstName),
+            root.get(Employee_.lastName),
+            root.get(Employee_.salary)
+        );
+        Predicate predicate = specification.toPredicate(root, query, builder);
+        if (predicate != null) {
+            query.where(predicate);
+        }
+        query.orderBy(builder.asc(root.get(Employee_.id)));
+        return entityManager.createQuery(query).setMaxResults(limit).getResultList();
+    }
+
     /**
      * Function to convert {@link EmployeeCriteria} to a {@link Specification}
      * @param criteria The object which holds all the filters, which the entities should match.
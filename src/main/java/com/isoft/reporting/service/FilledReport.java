@@ -0,0 +1,55 @@
+package com.isoft.reporting.service;
+
+import net.sf.jasperreports.engine.JRVirtualizer;
+import net.sf.jasperreports.engine.JasperPrint;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+
+/**
+ * A filled report, along with the virtualizer holding its pages if it was virtualized, or the store its pages are
+ * read from if it was loaded from a cache.
+ * <p>
+ * The report must be closed once exported, to release the storage of its virtualized pages.
+ */
+public class FilledReport implements AutoCloseable {
+
+    private final JasperPrint jasperPrint;
+
+    private final JRVirtualizer virtualizer;
+
+    private final Closeable pageStore;
+
+    public FilledReport(JasperPrint jasperPrint, JRVirtualizer virtualizer) {
+        this(jasperPrint, virtualizer, null);
+    }
+
+    public FilledReport(JasperPrint jasperPrint, JRVirtualizer virtualizer, Closeable pageStore) {
+        this.jasperPrint = jasperPrint;
+        this.virtualizer = virtualizer;
+        this.pageStore = pageStore;
+    }
+
+    public JasperPrint getJasperPrint() {
+        return jasperPrint;
+    }
+
+    public boolean isVirtualized() {
+        return virtualizer != null;
+    }
+
+    @Override
+    public void close() {
+        if (virtualizer != null) {
+            virtualizer.cleanup();
+        }
+        if (pageStore != null) {
+            try {
+                pageStore.close();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+    }
+}
@@ -0,0 +1,189 @@
+package com.isoft.reporting.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import org.springframework.beans.BeanWrapper;
+import org.springframework.beans.PropertyAccessorFactory;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+
+import javax.persistence.EntityManager;
+import javax.persistence.criteria.CriteriaBuilder;
+import javax.persistence.criteria.CriteriaQuery;
+import javax.persistence.criteria.Path;
+import javax.persistence.criteria.Predicate;
+import javax.persistence.criteria.Root;
+import javax.persistence.metamodel.Attribute.PersistentAttributeType;
+import javax.persistence.metamodel.SingularAttribute;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * Reads entities with keyset pagination: each slice seeks past the last row of the previous one, instead of skipping
+ * the rows before it, so that deep slices cost as much as the first one.
+ * <p>
+ * Rows are ordered by at most one sort key then by id, the id breaking ties, both in the direction of the sort. Rows
+ * without a sort key come first in ascending order and last in descending order, whatever the database does with
+ * nulls: they are read by a query of their own, so that each query can be served by an index on the sort key. No
+ * count query is run: one more row than the size of the slice is read to know whether there is a next one.
+ */
+final class KeysetQuery {
+
+    private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
+
+    private KeysetQuery() {
+    }
+
+    /**
+     * Read a slice of the entities, projected into DTOs.
+     * <p>
+     * The cursor of the next slice is read from the last DTO, which must have the id and the sort key as properties of
+     * the same names as the entity attributes.
+     *
+     * @param entityManager the entity manager.
+     * @param projection the projection of the entities into DTOs.
+     * @param idAttribute the id of the entities.
+     * @param specification the specification the entities should match.
+     * @param after the cursor of the slice, empty or {@code null} for the first slice.
+     * @param pageable the size and the sort of the slice, the page number is ignored.
+     * @param <E> the type of the entities.
+     * @param <D> the type of the DTOs.
+     * @return the slice.
+     * @throws IllegalArgumentException if the cursor is not valid or does not match the sort, or if the sort is not supported.
+     */
+    static <E, D> KeysetSlice<D> find(EntityManager entityManager, ProjectionQuery<E, D> projection, SingularAttribute<? super E, Long> idAttribute,
+                                      Specification<E> specification, String after, Pageable pageable) {
+        Sort.Order order = resolveOrder(pageable.getSort(), idAttribute.getName());
+        boolean ascending = order.isAscending();
+        Cursor cursor = after == null || after.isEmpty() ? null : Cursor.decode(after, order.getProperty());
+        String keyName = order.getProperty().equals(idAttribute.getName()) ? null : order.getProperty();
+        if (keyName != null &&
+            entityManager.getMetamodel().entity(projection.getEntityClass()).getAttribute(keyName).getPersistentAttributeType() != PersistentAttributeType.BASIC) {
+            throw new IllegalArgumentException("Cannot sort by " + keyName);
+        }
+
+        int size = pageable.getPageSize();
+        List<D> content = new ArrayList<>();
+        if (keyName == null) {
+            content.addAll(findRows(entityManager, projection, idAttribute, specification, null, false, cursor, ascending, size + 1));
+        } else {
+            // Rows without a sort key are read apart from the others, each query ordered by columns an index can serve:
+            // JPA cannot express NULLS FIRST or NULLS LAST, and ordering by an expression on the key would sort every row.
+            boolean[] nullPartitions = ascending ? new boolean[] { true, false } : new boolean[] { false, true };
+            int first = cursor == null || (cursor.value == null) == nullPartitions[0] ? 0 : 1;
+            for (int i = first; i < nullPartitions.length && content.size() <= size; i++) {
+                content.addAll(findRows(entityManager, projection, idAttribute, specification, keyName, nullPartitions[i],
+                    i == first ? cursor : null, ascending, size + 1 - content.size()));
+            }
+        }
+
+        String nextCursor = null;
+        if (content.size() > size) {
+            content = content.subList(0, size);
+            BeanWrapper last = PropertyAccessorFactory.forBeanPropertyAccess(content.get(size - 1));
+            Object value = keyName != null ? last.getPropertyValue(keyName) : null;
+            nextCursor = new Cursor(order.getProperty(), value, (Long) last.getPropertyValue(idAttribute.getName())).encode();
+        }
+        return new KeysetSlice<>(content, nextCursor);
+    }
+
+    /**
+     * Read the rows with a sort key, or those without, after a cursor.
+     */
+    @SuppressWarnings({ "unchecked", "rawtypes" })
+    private static <E, D> List<D> findRows(EntityManager entityManager, ProjectionQuery<E, D> projection, SingularAttribute<? super E, Long> idAttribute,
+                                           Specification<E> specification, String keyName, boolean withoutKey, Cursor cursor, boolean ascending, int limit) {
+        CriteriaBuilder builder = entityManager.getCriteriaBuilder();
+        CriteriaQuery<D> query = builder.createQuery(projection.getDtoClass());
+        Root<E> root = query.from(projection.getEntityClass());
+        query.select(projection.select(builder, root));
+        Path<Long> id = root.get(idAttribute);
+        Path<Comparable> key = keyName == null || withoutKey ? null : root.get(keyName);
+
+        List<Predicate> predicates = new ArrayList<>();
+        Predicate predicate = specification.toPredicate(root, query, builder);
+        if (predicate != null) {
+            predicates.add(predicate);
+        }
+        if (keyName != null) {
+            predicates.add(withoutKey ? builder.isNull(root.get(keyName)) : builder.isNotNull(root.get(keyName)));
+        }
+        if (cursor != null) {
+            predicates.add(seek(builder, key, id, cursor, ascending));
+        }
+        query.where(predicates.toArray(new Predicate[0]));
+
+        List<javax.persistence.criteria.Order> orders = new ArrayList<>();
+        if (key != null) {
+            orders.add(ascending ? builder.asc(key) : builder.desc(key));
+        }
+        orders.add(ascending ? builder.asc(id) : builder.desc(id));
+        query.orderBy(orders);
+        return entityManager.createQuery(query).setMaxResults(limit).getResultList();
+    }
+
+    private static Sort.Order resolveOrder(Sort sort, String idName) {
+        List<Sort.Order> orders = sort.stream().filter(order -> !order.getProperty().equals(idName)).collect(Collectors.toList());
+        if (orders.size() > 1) {
+            throw new IllegalArgumentException("Cannot sort by more than one property besides " + idName);
+        }
+        if (!orders.isEmpty()) {
+            return orders.get(0);
+        }
+        Sort.Order idOrder = sort.getOrderFor(idName);
+        return idOrder != null ? idOrder : Sort.Order.asc(idName);
+    }
+
+    @SuppressWarnings({ "unchecked", "rawtypes" })
+    private static Predicate seek(CriteriaBuilder builder, Path<Comparable> key, Path<Long> id, Cursor cursor, boolean ascending) {
+        Predicate idAfter = ascending ? builder.greaterThan(id, cursor.id) : builder.lessThan(id, cursor.id);
+        if (key == null) {
+            return idAfter;
+        }
+        Comparable value = (Comparable) OBJECT_MAPPER.convertValue(cursor.value, key.getJavaType());
+        Predicate keyAfter = ascending ? builder.greaterThan(key, value) : builder.lessThan(key, value);
+        return builder.or(keyAfter, builder.and(builder.equal(key, value), idAfter));
+    }
+
+    /**
+     * The sort key and the id of the last row of a slice, encoded as base64url JSON so that clients treat it as opaque.
+     */
+    private static final class Cursor {
+        private final String property;
+        private final Object value;
+        private final long id;
+
+        private Cursor(String property, Object value, long id) {
+            this.property = property;
+            this.value = value;
+            this.id = id;
+        }
+
+        private String encode() {
+            ObjectNode node = OBJECT_MAPPER.createObjectNode();
+            node.put("p", property);
+            node.set("v", OBJECT_MAPPER.valueToTree(value));
+            node.put("id", id);
+            return Base64.getUrlEncoder().withoutPadding().encodeToString(node.toString().getBytes(StandardCharsets.UTF_8));
+        }
+
+        private static Cursor decode(String cursor, String property) {
+            ObjectNode node;
+            try {
+                node = (ObjectNode) OBJECT_MAPPER.readTree(Base64.getUrlDecoder().decode(cursor));
+            } catch (IOException | IllegalArgumentException | ClassCastException e) {
+                throw new IllegalArgumentException("Invalid cursor");
+            }
+            if (node == null || !node.path("id").canConvertToLong() || !property.equals(node.path("p").asText())) {
+                throw new IllegalArgumentException("The cursor does not match the sort");
+            }
+            Object value = node.hasNonNull("v") ? OBJECT_MAPPER.convertValue(node.get("v"), Object.class) : null;
+            return new Cursor(property, value, node.get("id").asLong());
+        }
+    }
+}
@@ -0,0 +1,36 @@
+package com.isoft.reporting.service;
+
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * A slice of a listing read with keyset pagination, with the cursor of the next slice.
+ *
+ * @param <T> the type of the content.
+ */
+public class KeysetSlice<T> {
+
+    private final List<T> content;
+
+    private final String nextCursor;
+
+    public KeysetSlice(List<T> content, String nextCursor) {
+        this.content = content;
+        this.nextCursor = nextCursor;
+    }
+
+    public List<T> getContent() {
+        return content;
+    }
+
+    /**
+     * @return the opaque cursor of the next slice, or empty if this is the last slice.
+     */
+    public Optional<String> getNextCursor() {
+        return Optional.ofNullable(nextCursor);
+    }
+
+    public boolean hasNext() {
+        return nextCursor != null;
+    }
+}
@@ -0,0 +1,147 @@
+package com.isoft.reporting.service;
+
+import org.hibernate.jpa.QueryHints;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.data.jpa.repository.query.QueryUtils;
+import org.springframework.data.repository.support.PageableExecutionUtils;
+
+import javax.persistence.EntityManager;
+import javax.persistence.TypedQuery;
+import javax.persistence.criteria.CriteriaBuilder;
+import javax.persistence.criteria.CriteriaQuery;
+import javax.persistence.criteria.Predicate;
+import javax.persistence.criteria.Root;
+import javax.persistence.criteria.Selection;
+import java.util.List;
+import java.util.function.BiFunction;
+import java.util.function.LongSupplier;
+import java.util.stream.Stream;
+
+/**
+ * Reads entities matching a {@link Specification} straight into DTOs, with a constructor projection.
+ * <p>
+ * Only the columns of the DTOs are selected and no entity is created, so nothing is put in the persistence context,
+ * snapshotted for dirty checking or mapped afterwards.
+ *
+ * @param <E> the type of the entities.
+ * @param <D> the type of the DTOs.
+ */
+final class ProjectionQuery<E, D> {
+
+    private final Class<E> entityClass;
+
+    private final Class<D> dtoClass;
+
+    private final BiFunction<CriteriaBuilder, Root<E>, Selection<D>> projection;
+
+    /**
+     * @param entityClass the class of the entities.
+     * @param dtoClass the class of the DTOs.
+     * @param projection the selection of a DTO from the root of the query, usually {@link CriteriaBuilder#construct}.
+     */
+    ProjectionQuery(Class<E> entityClass, Class<D> dtoClass, BiFunction<CriteriaBuilder, Root<E>, Selection<D>> projection) {
+        this.entityClass = entityClass;
+        this.dtoClass = dtoClass;
+        this.projection = projection;
+    }
+
+    /**
+     * Read all the matching entities.
+     *
+     * @param entityManager the entity manager.
+     * @param specification the specification the entities should match.
+     * @return the DTOs.
+     */
+    List<D> findAll(EntityManager entityManager, Specification<E> specification) {
+        return createQuery(entityManager, specification, Sort.unsorted()).getResultList();
+    }
+
+    /**
+     * Read a page of the matching entities, counting them only when the page does not tell how many there are.
+     *
+     * @param entityManager the entity manager.
+     * @param specification the specification the entities should match.
+     * @param pageable the pagination information.
+     * @param count the count of the matching entities.
+     * @return the page.
+     */
+    Page<D> findPage(EntityManager entityManager, Specification<E> specification, Pageable pageable, LongSupplier count) {
+        TypedQuery<D> query = createQuery(entityManager, specification, pageable.getSort());
+        if (pageable.isPaged()) {
+            query.setFirstResult((int) pageable.getOffset());
+            query.setMaxResults(pageable.getPageSize());
+        }
+        return PageableExecutionUtils.getPage(query.getResultList(), pageable, count);
+    }
+
+    /**
+     * Read a page of the matching entities as a {@link Slice}, which unlike a {@link Page} needs no count query: one
+     * more row than the size of the page is read to know whether there is a next one.
+     *
+     * @param entityManager the entity manager.
+     * @param specification the specification the entities should match.
+     * @param pageable the pagination information.
+     * @return the slice.
+     */
+    Slice<D> findSlice(EntityManager entityManager, Specification<E> specification, Pageable pageable) {
+        TypedQuery<D> query = createQuery(entityManager, specification, pageable.getSort());
+        if (pageable.isPaged()) {
+            query.setFirstResult((int) pageable.getOffset());
+            query.setMaxResults(pageable.getPageSize() + 1);
+        }
+        List<D> rows = query.getResultList();
+        boolean hasNext = pageable.isPaged() && rows.size() > pageable.getPageSize();
+        if (hasNext) {
+            rows = rows.subList(0, pageable.getPageSize());
+        }
+        return new SliceImpl<>(rows, pageable, hasNext);
+    }
+
+    /**
+     * Stream the matching entities, read forward only from a database cursor, in constant memory.
+     * <p>
+     * The stream must be consumed and closed within the transaction which opened it.
+     *
+     * @param entityManager the entity manager.
+     * @param specification the specification the entities should match.
+     * @param fetchSize the number of rows fetched from the database at a time.
+     * @return the DTOs.
+     */
+    Stream<D> stream(EntityManager entityManager, Specification<E> specification, int fetchSize) {
+        return createQuery(entityManager, specification, Sort.unsorted())
+            .setHint(QueryHints.HINT_FETCH_SIZE, fetchSize)
+            .getResultStream();
+    }
+
+    Class<E> getEntityClass() {
+        return entityClass;
+    }
+
+    Class<D> getDtoClass() {
+        return dtoClass;
+    }
+
+    Selection<D> select(CriteriaBuilder builder, Root<E> root) {
+        return projection.apply(builder, root);
+    }
+
+    private TypedQuery<D> createQuery(EntityManager entityManager, Specification<E> specification, Sort sort) {
+        CriteriaBuilder builder = entityManager.getCriteriaBuilder();
+        CriteriaQuery<D> query = builder.createQuery(dtoClass);
+        Root<E> root = query.from(entityClass);
+        query.select(select(builder, root));
+        Predicate predicate = specification.toPredicate(root, query, builder);
+        if (predicate != null) {
+            query.where(predicate);
+        }
+        if (sort.isSorted()) {
+            query.orderBy(QueryUtils.toOrders(sort, root, builder));
+        }
+        return entityManager.createQuery(query);
+    }
+}
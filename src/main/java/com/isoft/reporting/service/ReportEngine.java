@@ -0,0 +1,184 @@
+package com.isoft.reporting.service;
+
+import com.isoft.reporting.config.ApplicationProperties;
+import com.isoft.reporting.service.report.ReportDataSourceProvider;
+import com.isoft.reporting.service.report.ReportVirtualizerFactory;
+import io.github.jhipster.service.Criteria;
+import net.sf.jasperreports.engine.JRParameter;
+import net.sf.jasperreports.engine.JRQueryChunk;
+import net.sf.jasperreports.engine.JRVirtualizer;
+import net.sf.jasperreports.engine.JasperPrint;
+import net.sf.jasperreports.engine.JasperReport;
+import net.sf.jasperreports.engine.fill.FillListener;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.BeanUtils;
+import org.springframework.beans.MutablePropertyValues;
+import org.springframework.core.convert.ConversionException;
+import org.springframework.core.convert.ConversionService;
+import org.springframework.core.convert.support.DefaultConversionService;
+import org.springframework.stereotype.Service;
+import org.springframework.validation.DataBinder;
+import org.springframework.validation.FieldError;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Service for filling reports from their template name.
+ * <p>
+ * The engine keeps no per-request state: templates come from the {@link ReportTemplateRegistry} and
+ * every call works on its own parameters and {@link JasperPrint}, so it is safe for concurrent callers.
+ */
+@Service
+public class ReportEngine {
+
+    private final Logger log = LoggerFactory.getLogger(ReportEngine.class);
+
+    private final ConversionService conversionService = DefaultConversionService.getSharedInstance();
+
+    private final ReportTemplateRegistry templateRegistry;
+
+    private final SimpleReportFiller reportFiller;
+
+    private final ReportVirtualizerFactory virtualizerFactory;
+
+    private final Map<String, ReportDataSourceProvider> dataSourceProviders = new HashMap<>();
+
+    public ReportEngine(
+        ReportTemplateRegistry templateRegistry,
+        SimpleReportFiller reportFiller,
+        ReportVirtualizerFactory virtualizerFactory,
+        List<ReportDataSourceProvider> dataSourceProviders
+    ) {
+        this.templateRegistry = templateRegistry;
+        this.reportFiller = reportFiller;
+        this.virtualizerFactory = virtualizerFactory;
+        dataSourceProviders.forEach(provider -> this.dataSourceProviders.put(provider.getName(), provider));
+    }
+
+    /**
+     * Fill a report.
+     *
+     * @param templateId the name of the report template.
+     * @param params the report parameters.
+     * @return the filled report, to be closed once exported.
+     */
+    public FilledReport fill(String templateId, Map<String, Object> params) {
+        return fill(templateId, params, null);
+    }
+
+    /**
+     * Fill a report, notifying a listener as pages are generated.
+     * <p>
+     * Reports naming a {@link ReportDataSourceProvider} are filled from the data source it provides,
+     * the others run their own query on a connection from the application data source. Large reports are
+     * virtualized, as selected by the {@link ReportVirtualizerFactory}; the rows of a report running its own query
+     * are only counted if it names a provider to count them with.
+     *
+     * @param templateId the name of the report template.
+     * @param params the report parameters.
+     * @param fillListener the listener notified of the fill progress, can be {@code null}.
+     * @return the filled report, to be closed once exported.
+     */
+    public FilledReport fill(String templateId, Map<String, Object> params, FillListener fillListener) {
+        log.debug("Request to fill report {} with parameters : {}", templateId, params);
+        JasperReport jasperReport = templateRegistry.getReport(templateId);
+        ReportDataSourceProvider provider = findDataSourceProvider(templateId, jasperReport, ReportDataSourceProvider.PROPERTY_DATA_SOURCE);
+        ReportDataSourceProvider rowCounter = provider != null
+            ? provider
+            : findDataSourceProvider(templateId, jasperReport, ReportDataSourceProvider.PROPERTY_ROW_COUNT);
+        ApplicationProperties.Report.Virtualizer.Mode mode = virtualizerFactory.selectMode(
+            jasperReport,
+            () -> rowCounter == null ? -1 : rowCounter.countRows(params)
+        );
+        log.debug("Filling report {} with virtualizer : {}", templateId, mode);
+        JRVirtualizer virtualizer = virtualizerFactory.create(mode);
+        try {
+            JasperPrint jasperPrint = provider == null
+                ? reportFiller.fillReport(jasperReport, params, virtualizer, fillListener)
+                : reportFiller.fillReport(jasperReport, params, provider.createDataSource(params), virtualizer, fillListener);
+            return new FilledReport(jasperPrint, virtualizer);
+        } catch (RuntimeException e) {
+            if (virtualizer != null) {
+                virtualizer.cleanup();
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * Keep the values of the parameters declared by a template, converted to their declared type.
+     * <p>
+     * Values for unknown or built-in parameters are dropped, so that callers cannot override the
+     * connection, data source or other internals of the fill. So are values for parameters spliced into
+     * the query as raw SQL ({@code $P!{...}}), which must never come from a client.
+     * <p>
+     * Parameters of a {@link Criteria} type are bound from all the values, the way the REST resources bind
+     * their criteria from the request parameters: {@code salary.greaterThan=1000} for example.
+     *
+     * @param templateId the name of the report template.
+     * @param values the requested parameter values, typically from a client request.
+     * @return the parameters to fill the report with.
+     * @throws IllegalArgumentException if a value cannot be converted to its declared type.
+     */
+    public Map<String, Object> resolveParameters(String templateId, Map<String, ?> values) {
+        Map<String, Object> params = new HashMap<>();
+        if (values == null) {
+            return params;
+        }
+        JasperReport jasperReport = templateRegistry.getReport(templateId);
+        Set<String> clauseParameters = new HashSet<>();
+        if (jasperReport.getQuery() != null && jasperReport.getQuery().getChunks() != null) {
+            for (JRQueryChunk chunk : jasperReport.getQuery().getChunks()) {
+                if (chunk.getType() == JRQueryChunk.TYPE_PARAMETER_CLAUSE) {
+                    clauseParameters.add(chunk.getText());
+                }
+            }
+        }
+        for (JRParameter parameter : jasperReport.getParameters()) {
+            if (parameter.isSystemDefined() || clauseParameters.contains(parameter.getName())) {
+                continue;
+            }
+            if (!values.containsKey(parameter.getName())) {
+                if (Criteria.class.isAssignableFrom(parameter.getValueClass())) {
+                    params.put(parameter.getName(), bindCriteria(parameter, values));
+                }
+                continue;
+            }
+            try {
+                params.put(parameter.getName(), conversionService.convert(values.get(parameter.getName()), parameter.getValueClass()));
+            } catch (ConversionException e) {
+                throw new IllegalArgumentException("Invalid value for report parameter: " + parameter.getName(), e);
+            }
+        }
+        return params;
+    }
+
+    private ReportDataSourceProvider findDataSourceProvider(String templateId, JasperReport jasperReport, String property) {
+        String name = jasperReport.getProperty(property);
+        if (name == null) {
+            return null;
+        }
+        ReportDataSourceProvider provider = dataSourceProviders.get(name);
+        if (provider == null) {
+            throw new ReportGenerationException("Unknown data source " + name + " for report: " + templateId);
+        }
+        return provider;
+    }
+
+    private Object bindCriteria(JRParameter parameter, Map<String, ?> values) {
+        Object criteria = BeanUtils.instantiateClass(parameter.getValueClass());
+        DataBinder binder = new DataBinder(criteria, parameter.getName());
+        binder.setConversionService(conversionService);
+        binder.bind(new MutablePropertyValues(values));
+        FieldError error = binder.getBindingResult().getFieldError();
+        if (error != null) {
+            throw new IllegalArgumentException("Invalid value for report parameter: " + parameter.getName() + "." + error.getField());
+        }
+        return criteria;
+    }
+}
@@ -0,0 +1,16 @@
+package com.isoft.reporting.service;
+
+/**
+ * Thrown when a report cannot be compiled, filled or exported.
+ */
+public class ReportGenerationException extends RuntimeException {
+    private static final long serialVersionUID = 1L;
+
+    public ReportGenerationException(String message) {
+        super(message);
+    }
+
+    public ReportGenerationException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
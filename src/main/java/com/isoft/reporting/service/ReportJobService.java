@@ -0,0 +1,219 @@
+package com.isoft.reporting.service;
+
+import com.isoft.reporting.config.ApplicationProperties;
+import com.isoft.reporting.service.dto.ReportJobDTO;
+import com.isoft.reporting.service.dto.ReportRequestDTO;
+import com.isoft.reporting.service.report.ReportFormat;
+import com.isoft.reporting.service.report.ReportFormatRegistry;
+import net.sf.jasperreports.engine.JasperPrint;
+import net.sf.jasperreports.engine.fill.FillListener;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.util.FileSystemUtils;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+
+/**
+ * Service for generating reports asynchronously.
+ * <p>
+ * Jobs are filled and exported in the bulk lane of the {@link ReportScheduler}, so that large reports neither hold
+ * request threads nor delay interactive reports. Their output is written to a private temporary directory and kept until the job expires.
+ */
+@Service
+public class ReportJobService {
+
+    private final Logger log = LoggerFactory.getLogger(ReportJobService.class);
+
+    private final Map<String, ReportJob> jobs = new ConcurrentHashMap<>();
+
+    private final ReportEngine reportEngine;
+
+    private final ReportFormatRegistry formatRegistry;
+
+    private final ReportTemplateRegistry templateRegistry;
+
+    private final ReportScheduler reportScheduler;
+
+    private final ApplicationProperties applicationProperties;
+
+    public ReportJobService(
+        ReportEngine reportEngine,
+        ReportFormatRegistry formatRegistry,
+        ReportTemplateRegistry templateRegistry,
+        ReportScheduler reportScheduler,
+        ApplicationProperties applicationProperties
+    ) {
+        this.reportEngine = reportEngine;
+        this.formatRegistry = formatRegistry;
+        this.templateRegistry = templateRegistry;
+        this.reportScheduler = reportScheduler;
+        this.applicationProperties = applicationProperties;
+    }
+
+    /**
+     * Submit a report job.
+     *
+     * @param request the report to generate.
+     * @return the submitted job.
+     * @throws IllegalArgumentException if the template, a format or a parameter is invalid.
+     * @throws ReportRejectedException if too many jobs are already queued.
+     */
+    public ReportJobDTO submit(ReportRequestDTO request) {
+        log.debug("Request to submit report job : {}", request);
+        String template = request.getTemplate();
+        if (!templateRegistry.exists(template)) {
+            throw new IllegalArgumentException("Unknown report template: " + template);
+        }
+        List<ReportFormat> formats = formatRegistry.resolve(request.getFormats());
+        Map<String, Object> params = reportEngine.resolveParameters(template, request.getParameters());
+
+        ReportJob job = new ReportJob(UUID.randomUUID().toString(), template, formats);
+        jobs.put(job.id, job);
+        try {
+            reportScheduler.submit(ReportScheduler.Lane.BULK, () -> {
+                run(job, params);
+                return null;
+            });
+        } catch (ReportRejectedException e) {
+            jobs.remove(job.id);
+            throw e;
+        }
+        return job.toDto();
+    }
+
+    /**
+     * Get the "id" report job.
+     *
+     * @param id the id of the job.
+     * @return the job.
+     */
+    public Optional<ReportJobDTO> findOne(String id) {
+        return Optional.ofNullable(jobs.get(id)).map(ReportJob::toDto);
+    }
+
+    /**
+     * Get the file holding the output of a completed report job.
+     *
+     * @param id the id of the job.
+     * @param format the requested format.
+     * @return the output file, or empty if the job is not completed or was not exported to this format.
+     */
+    public Optional<Path> getOutput(String id, String format) {
+        ReportJob job = jobs.get(id);
+        if (job == null || job.status != ReportJobDTO.Status.COMPLETED || format == null) {
+            return Optional.empty();
+        }
+        return formatRegistry.find(format)
+            .filter(job.formats::contains)
+            .map(reportFormat -> job.outputDirectory.resolve(reportFormat.getFileName(job.template)));
+    }
+
+    /**
+     * Remove the jobs finished for longer than the configured retention, along with their output.
+     * <p>
+     * This is scheduled to get fired every minute.
+     */
+    @Scheduled(fixedDelay = 60000)
+    public void removeExpiredJobs() {
+        Instant expiry = Instant.now().minusSeconds(applicationProperties.getReport().getJobs().getRetentionSeconds());
+        jobs.values().removeIf(job -> {
+            if (job.finishedDate == null || job.finishedDate.isAfter(expiry)) {
+                return false;
+            }
+            log.debug("Removing expired report job : {}", job.id);
+            deleteOutput(job);
+            return true;
+        });
+    }
+
+    private void run(ReportJob job, Map<String, Object> params) {
+        job.startedDate = Instant.now();
+        job.status = ReportJobDTO.Status.RUNNING;
+        try {
+            FillListener fillListener = new FillListener() {
+                @Override
+                public void pageGenerated(JasperPrint jasperPrint, int pageIndex) {
+                    job.pagesFilled = pageIndex + 1;
+                }
+
+                @Override
+                public void pageUpdated(JasperPrint jasperPrint, int pageIndex) {
+                    // Only new pages are reported as progress.
+                }
+            };
+            try (FilledReport filledReport = reportEngine.fill(job.template, params, fillListener)) {
+                JasperPrint jasperPrint = filledReport.getJasperPrint();
+                job.pagesFilled = jasperPrint.getPages().size();
+                job.outputDirectory = Files.createTempDirectory("report-job-");
+                Path outputDirectory = job.outputDirectory;
+                formatRegistry.exportAll(jasperPrint, job.formats, format ->
+                    new BufferedOutputStream(Files.newOutputStream(outputDirectory.resolve(format.getFileName(job.template))))
+                );
+            }
+            job.finishedDate = Instant.now();
+            job.status = ReportJobDTO.Status.COMPLETED;
+        } catch (IOException | RuntimeException e) {
+            log.error("Report job {} failed", job.id, e);
+            deleteOutput(job);
+            job.errorMessage = e.getMessage();
+            job.finishedDate = Instant.now();
+            job.status = ReportJobDTO.Status.FAILED;
+        }
+    }
+
+    private void deleteOutput(ReportJob job) {
+        if (job.outputDirectory == null) {
+            return;
+        }
+        try {
+            FileSystemUtils.deleteRecursively(job.outputDirectory);
+        } catch (IOException e) {
+            log.warn("Could not delete output of report job {}: {}", job.id, e.getMessage());
+        }
+    }
+
+    private static final class ReportJob {
+        private final String id;
+        private final String template;
+        private final List<ReportFormat> formats;
+        private final Instant submittedDate = Instant.now();
+        private volatile ReportJobDTO.Status status = ReportJobDTO.Status.QUEUED;
+        private volatile int pagesFilled;
+        private volatile Instant startedDate;
+        private volatile Instant finishedDate;
+        private volatile String errorMessage;
+        private volatile Path outputDirectory;
+
+        private ReportJob(String id, String template, List<ReportFormat> formats) {
+            this.id = id;
+            this.template = template;
+            this.formats = formats;
+        }
+
+        private ReportJobDTO toDto() {
+            ReportJobDTO dto = new ReportJobDTO();
+            dto.setId(id);
+            dto.setTemplate(template);
+            dto.setFormats(formats.stream().map(ReportFormat::getName).collect(Collectors.toList()));
+            dto.setStatus(status);
+            dto.setPagesFilled(pagesFilled);
+            dto.setSubmittedDate(submittedDate);
+            dto.setStartedDate(startedDate);
+            dto.setFinishedDate(finishedDate);
+            dto.setErrorMessage(errorMessage);
+            return dto;
+        }
+    }
+}
@@ -0,0 +1,19 @@
+package com.isoft.reporting.service;
+
+/**
+ * Thrown when a report is not admitted because too many reports are already waiting to be filled.
+ */
+public class ReportRejectedException extends RuntimeException {
+    private static final long serialVersionUID = 1L;
+
+    private final int retryAfterSeconds;
+
+    public ReportRejectedException(String message, int retryAfterSeconds) {
+        super(message);
+        this.retryAfterSeconds = retryAfterSeconds;
+    }
+
+    public int getRetryAfterSeconds() {
+        return retryAfterSeconds;
+    }
+}
@@ -0,0 +1,215 @@
+package com.isoft.reporting.service;
+
+import com.isoft.reporting.config.ApplicationProperties;
+import com.isoft.reporting.config.VirtualThreads;
+import com.zaxxer.hikari.HikariConfig;
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PreDestroy;
+import javax.sql.DataSource;
+import java.sql.SQLException;
+import java.util.EnumMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * Service running report fills with bounded concurrency.
+ * <p>
+ * Interactive fills, requested over HTTP, and bulk fills, run by report jobs, go through separate lanes, so that large
+ * jobs never delay the reports a user is waiting for. Each lane runs a fixed number of fills at once and queues a
+ * bounded number of others; further fills are rejected with a {@link ReportRejectedException}.
+ * <p>
+ * Fills run on platform threads by default. In {@code virtual} mode, each fill gets its own virtual thread, so that
+ * fills blocked on JDBC do not hold platform threads. All fills then also share a permit per connection of the
+ * Hikari pool, as the pool is what actually bounds them.
+ * <p>
+ * The queue depth, active fills, wait time and rejections of each lane are published as {@code report.scheduler.*}
+ * metrics, tagged with the lane.
+ */
+@Service
+public class ReportScheduler {
+
+    public enum Lane {
+        INTERACTIVE,
+        BULK
+    }
+
+    private final Logger log = LoggerFactory.getLogger(ReportScheduler.class);
+
+    private final Map<Lane, LaneExecutor> lanes = new EnumMap<>(Lane.class);
+
+    private final int retryAfterSeconds;
+
+    private final Semaphore connectionPermits;
+
+    public ReportScheduler(ApplicationProperties applicationProperties, MeterRegistry meterRegistry, DataSource dataSource) {
+        ApplicationProperties.Report.Scheduler properties = applicationProperties.getReport().getScheduler();
+        this.retryAfterSeconds = properties.getRetryAfterSeconds();
+        boolean virtual = properties.getThreads() == ApplicationProperties.Report.Scheduler.Threads.VIRTUAL;
+        if (virtual && !VirtualThreads.isSupported()) {
+            log.warn("Virtual threads are not supported by this JVM, report fills run on platform threads");
+            virtual = false;
+        }
+        this.connectionPermits = virtual ? new Semaphore(connectionPoolSize(dataSource), true) : null;
+        lanes.put(Lane.INTERACTIVE, new LaneExecutor(Lane.INTERACTIVE, properties.getInteractive(), virtual, meterRegistry));
+        lanes.put(Lane.BULK, new LaneExecutor(Lane.BULK, properties.getBulk(), virtual, meterRegistry));
+    }
+
+    /**
+     * Submit a fill to a lane.
+     *
+     * @param lane the lane to run the fill in.
+     * @param task the fill.
+     * @param <T> the type of the result.
+     * @return the future result of the fill.
+     * @throws ReportRejectedException if the queue of the lane is full.
+     */
+    public <T> CompletableFuture<T> submit(Lane lane, Supplier<T> task) {
+        LaneExecutor executor = lanes.get(lane);
+        if (executor.queued.incrementAndGet() > executor.queueCapacity) {
+            executor.queued.decrementAndGet();
+            executor.rejected.increment();
+            log.warn("Rejecting {} report, {} fills are already queued", lane, executor.queueCapacity);
+            throw new ReportRejectedException("Too many reports are being generated, retry later", retryAfterSeconds);
+        }
+        long submitted = System.nanoTime();
+        try {
+            return CompletableFuture.supplyAsync(() -> executor.run(task, submitted), executor.executor);
+        } catch (RejectedExecutionException e) {
+            executor.queued.decrementAndGet();
+            throw new ReportGenerationException("Report scheduler is shut down", e);
+        }
+    }
+
+    /**
+     * Run a fill in a lane, waiting for its result.
+     *
+     * @param lane the lane to run the fill in.
+     * @param task the fill.
+     * @param <T> the type of the result.
+     * @return the result of the fill.
+     * @throws ReportRejectedException if the queue of the lane is full.
+     */
+    public <T> T run(Lane lane, Supplier<T> task) {
+        CompletableFuture<T> future = submit(lane, task);
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            // A running fill cannot be stopped, its result is released once it completes.
+            future.thenAccept(this::release);
+            Thread.currentThread().interrupt();
+            throw new ReportGenerationException("Interrupted while waiting for the report", e);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause() instanceof CompletionException ? e.getCause().getCause() : e.getCause();
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw new ReportGenerationException("Could not generate report", cause);
+        }
+    }
+
+    private void release(Object result) {
+        if (result instanceof AutoCloseable) {
+            try {
+                ((AutoCloseable) result).close();
+            } catch (Exception e) {
+                log.warn("Could not release abandoned report: {}", e.getMessage());
+            }
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        lanes.values().forEach(lane -> lane.executor.shutdownNow());
+    }
+
+    private static int connectionPoolSize(DataSource dataSource) {
+        try {
+            if (dataSource.isWrapperFor(HikariDataSource.class)) {
+                return dataSource.unwrap(HikariDataSource.class).getMaximumPoolSize();
+            }
+        } catch (SQLException e) {
+            // Not a Hikari data source, fall through to the Hikari default.
+        }
+        return new HikariConfig().getMaximumPoolSize();
+    }
+
+    private final class LaneExecutor {
+        private final ExecutorService executor;
+        private final Semaphore permits;
+        private final int queueCapacity;
+        private final AtomicInteger queued = new AtomicInteger();
+        private final AtomicInteger active = new AtomicInteger();
+        private final Timer waitTime;
+        private final Counter rejected;
+
+        private LaneExecutor(Lane lane, ApplicationProperties.Report.Scheduler.Lane properties, boolean virtual, MeterRegistry meterRegistry) {
+            String name = lane.name().toLowerCase(Locale.ROOT);
+            String threadNamePrefix = "report-" + name + "-";
+            this.executor = virtual
+                ? VirtualThreads.newThreadPerTaskExecutor(threadNamePrefix).orElseThrow(IllegalStateException::new)
+                : Executors.newFixedThreadPool(properties.getConcurrency(), new CustomizableThreadFactory(threadNamePrefix));
+            this.permits = new Semaphore(properties.getConcurrency(), true);
+            this.queueCapacity = properties.getQueueCapacity();
+            Gauge.builder("report.scheduler.queue.depth", queued, AtomicInteger::get).tag("lane", name)
+                .description("Report fills waiting to run").register(meterRegistry);
+            Gauge.builder("report.scheduler.active", active, AtomicInteger::get).tag("lane", name)
+                .description("Report fills running").register(meterRegistry);
+            this.waitTime = Timer.builder("report.scheduler.wait").tag("lane", name)
+                .description("Time report fills wait before running").register(meterRegistry);
+            this.rejected = Counter.builder("report.scheduler.rejected").tag("lane", name)
+                .description("Report fills rejected because the queue was full").register(meterRegistry);
+        }
+
+        private <T> T run(Supplier<T> task, long submitted) {
+            try {
+                permits.acquire();
+                try {
+                    if (connectionPermits != null) {
+                        connectionPermits.acquire();
+                    }
+                } catch (InterruptedException e) {
+                    permits.release();
+                    throw e;
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new ReportGenerationException("Interrupted while waiting to fill the report", e);
+            } finally {
+                queued.decrementAndGet();
+            }
+            waitTime.record(System.nanoTime() - submitted, TimeUnit.NANOSECONDS);
+            active.incrementAndGet();
+            try {
+                return task.get();
+            } finally {
+                active.decrementAndGet();
+                if (connectionPermits != null) {
+                    connectionPermits.release();
+                }
+                permits.release();
+            }
+        }
+    }
+}
@@ -0,0 +1,220 @@
+package com.isoft.reporting.service;
+
+import com.isoft.reporting.config.ApplicationProperties;
+import net.sf.jasperreports.engine.JRException;
+import net.sf.jasperreports.engine.JRExpression;
+import net.sf.jasperreports.engine.JRSubreport;
+import net.sf.jasperreports.engine.JasperCompileManager;
+import net.sf.jasperreports.engine.JasperReport;
+import net.sf.jasperreports.engine.util.JRElementsVisitor;
+import net.sf.jasperreports.engine.util.JRLoader;
+import net.sf.jasperreports.engine.util.JRVisitorSupport;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.core.io.Resource;
+import org.springframework.stereotype.Component;
+import org.springframework.util.DigestUtils;
+import org.springframework.util.StreamUtils;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.regex.Pattern;
+
+/**
+ * Registry of compiled Jasper templates.
+ * <p>
+ * Templates are compiled to {@code .jasper} classpath resources by the build, and loaded from there. A template
+ * without compiled resource, or whose {@code .jrxml} source is newer, is compiled on access instead. Reports are kept
+ * in a bounded, least-recently-used cache keyed by the template name and the hash of the loaded resource, and are
+ * reloaded when it changes. Sub-reports referenced by a template are loaded along with it, each of them once even when
+ * templates reference each other.
+ */
+@Component
+public class ReportTemplateRegistry {
+
+    private static final String TEMPLATE_EXTENSION = ".jrxml";
+
+    private static final String COMPILED_EXTENSION = ".jasper";
+
+    private static final Pattern TEMPLATE_NAME = Pattern.compile("[A-Za-z0-9_-]+");
+
+    private final Logger log = LoggerFactory.getLogger(ReportTemplateRegistry.class);
+
+    private final Map<String, CompiledTemplate> templates;
+
+    public ReportTemplateRegistry(ApplicationProperties applicationProperties) {
+        int maxEntries = applicationProperties.getReport().getTemplateCache().getMaxEntries();
+        this.templates = new LinkedHashMap<String, CompiledTemplate>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, CompiledTemplate> eldest) {
+                return size() > maxEntries;
+            }
+        };
+    }
+
+    /**
+     * Check whether a template with the given name is available.
+     *
+     * @param templateName the name of the template, without extension.
+     * @return {@code true} if the template exists.
+     */
+    public boolean exists(String templateName) {
+        return templateName != null && TEMPLATE_NAME.matcher(templateName).matches() &&
+            (new ClassPathResource(templateName + COMPILED_EXTENSION).exists() || new ClassPathResource(templateName + TEMPLATE_EXTENSION).exists());
+    }
+
+    /**
+     * Resolve the template a report location refers to, such as the expression of a sub-report.
+     *
+     * @param location the logical name of the template, optionally with the {@code .jasper} extension.
+     * @return the name of the template, or {@code null} if the location is not an existing template.
+     */
+    public String resolveTemplateName(String location) {
+        String name = location.endsWith(COMPILED_EXTENSION) ? location.substring(0, location.length() - COMPILED_EXTENSION.length()) : location;
+        return exists(name) ? name : null;
+    }
+
+    /**
+     * Get the compiled report for a template, loading it if it is not cached or its resource has changed.
+     *
+     * @param templateName the name of the template, without extension.
+     * @return the compiled report.
+     */
+    public JasperReport getReport(String templateName) {
+        return getReport(templateName, new HashSet<>());
+    }
+
+    private JasperReport getReport(String templateName, Set<String> visited) {
+        visited.add(templateName);
+        Resource compiled = new ClassPathResource(templateName + COMPILED_EXTENSION);
+        Resource source = new ClassPathResource(templateName + TEMPLATE_EXTENSION);
+        boolean precompiled = compiled.exists() && (!source.exists() || lastModified(source) <= lastModified(compiled));
+        Resource resource = precompiled ? compiled : source;
+        if (!resource.exists()) {
+            throw new IllegalArgumentException("Report template not found: " + templateName);
+        }
+        long lastModified = lastModified(resource);
+        CompiledTemplate cached;
+        synchronized (templates) {
+            cached = templates.get(templateName);
+        }
+        CompiledTemplate template;
+        if (cached != null && lastModified != 0 && cached.lastModified == lastModified) {
+            template = cached;
+        } else {
+            byte[] content = read(resource);
+            String hash = DigestUtils.md5DigestAsHex(content);
+            if (cached != null && cached.hash.equals(hash)) {
+                template = new CompiledTemplate(hash, lastModified, cached.report, cached.subreports);
+            } else {
+                JasperReport report = precompiled ? load(templateName, content) : compile(templateName, content);
+                template = new CompiledTemplate(hash, lastModified, report, findSubreports(report));
+            }
+            synchronized (templates) {
+                templates.put(templateName, template);
+            }
+            // Sub-reports are checked when their parent is (re)loaded, and otherwise on access by the fill.
+            for (String subreport : template.subreports) {
+                if (!visited.contains(subreport)) {
+                    getReport(subreport, visited);
+                }
+            }
+        }
+        return template.report;
+    }
+
+    /**
+     * Remove a template from the cache, so that it is recompiled on next access.
+     *
+     * @param templateName the name of the template, without extension.
+     */
+    public void evict(String templateName) {
+        log.debug("Evicting report template : {}", templateName);
+        synchronized (templates) {
+            templates.remove(templateName);
+        }
+    }
+
+    /**
+     * Remove all templates from the cache.
+     */
+    public void clear() {
+        synchronized (templates) {
+            templates.clear();
+        }
+    }
+
+    private JasperReport load(String templateName, byte[] content) {
+        log.debug("Loading compiled report template : {}", templateName);
+        try {
+            return (JasperReport) JRLoader.loadObject(new ByteArrayInputStream(content));
+        } catch (JRException | ClassCastException e) {
+            throw new ReportGenerationException("Could not load compiled report template: " + templateName, e);
+        }
+    }
+
+    private JasperReport compile(String templateName, byte[] source) {
+        log.warn("Compiling report template {}, it was not compiled by the build", templateName);
+        try {
+            return JasperCompileManager.compileReport(new ByteArrayInputStream(source));
+        } catch (JRException e) {
+            throw new ReportGenerationException("Could not compile report template: " + templateName, e);
+        }
+    }
+
+    private List<String> findSubreports(JasperReport report) {
+        List<String> subreports = new ArrayList<>();
+        JRElementsVisitor.visitReport(report, new JRVisitorSupport() {
+            @Override
+            public void visitSubreport(JRSubreport subreport) {
+                JRExpression expression = subreport.getExpression();
+                String text = expression == null ? null : expression.getText().trim();
+                if (text != null && text.length() > 1 && text.startsWith("\"") && text.endsWith("\"")) {
+                    String name = resolveTemplateName(text.substring(1, text.length() - 1));
+                    if (name != null) {
+                        subreports.add(name);
+                    }
+                }
+            }
+        });
+        return subreports;
+    }
+
+    private static byte[] read(Resource resource) {
+        try (InputStream in = resource.getInputStream()) {
+            return StreamUtils.copyToByteArray(in);
+        } catch (IOException e) {
+            throw new ReportGenerationException("Could not read report template: " + resource.getDescription(), e);
+        }
+    }
+
+    private static long lastModified(Resource resource) {
+        try {
+            return resource.lastModified();
+        } catch (IOException e) {
+            return 0;
+        }
+    }
+
+    private static final class CompiledTemplate {
+        private final String hash;
+        private final long lastModified;
+        private final JasperReport report;
+        private final List<String> subreports;
+
+        private CompiledTemplate(String hash, long lastModified, JasperReport report, List<String> subreports) {
+            this.hash = hash;
+            this.lastModified = lastModified;
+            this.report = report;
+            this.subreports = subreports;
+        }
+    }
+}
@@ -8,43 +8,49 @@ import net.sf.jasperreports.engine.export.JRCsvExporter;
 import net.sf.jasperreports.engine.export.JRPdfExporter;
 import net.sf.jasperreports.engine.export.ooxml.JRXlsxExporter;
 import net.sf.jasperreports.export.*;
-import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.stereotype.Component;
 
-import java.util.logging.Level;
-import java.util.logging.Logger;
-
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.Writer;
+
+/**
+ * Exports filled reports to the supported document formats.
+ * <p>
+ * Reports are written to the stream given by the caller, so nothing is written to disk unless the caller asks
+ * for it. The exporter keeps no per-request state and can be shared between concurrent callers. Formats are
+ * selected through the {@link com.isoft.reporting.service.report.ReportFormat} beans wrapping these methods.
+ */
 @Component
 public class SimpleReportExporter {
 
-    private JasperPrint jasperPrint;
-
-    public SimpleReportExporter() {
-    }
-
-    public SimpleReportExporter(JasperPrint jasperPrint) {
-        this.jasperPrint = jasperPrint;
+    public void exportToPdf(JasperPrint jasperPrint, OutputStream outputStream, String author) {
+        exportToPdf(jasperPrint, outputStream, author, null, null);
     }
 
-    public JasperPrint getJasperPrint() {
-        return jasperPrint;
-    }
-
-    public void setJasperPrint(JasperPrint jasperPrint) {
-        this.jasperPrint = jasperPrint;
-    }
-
-    public void exportToPdf(String fileName, String author) {
-
-        // print report to file
+    /**
+     * Export a range of pages of a report to PDF. Only these pages are read, so the pages of a virtualized
+     * report outside the range stay out of the heap.
+     *
+     * @param jasperPrint the filled report.
+     * @param outputStream the stream to write to.
+     * @param author the author of the document.
+     * @param startPageIndex the index of the first page, from 0, or {@code null} for the first page of the report.
+     * @param endPageIndex the index of the last page, inclusive, or {@code null} for the last page of the report.
+     */
+    public void exportToPdf(JasperPrint jasperPrint, OutputStream outputStream, String author, Integer startPageIndex, Integer endPageIndex) {
+
+        // print report to stream
         JRPdfExporter exporter = new JRPdfExporter();
 
         exporter.setExporterInput(new SimpleExporterInput(jasperPrint));
-        exporter.setExporterOutput(new SimpleOutputStreamExporterOutput(fileName));
+        exporter.setExporterOutput(new SimpleOutputStreamExporterOutput(outputStream));
 
         SimplePdfReportConfiguration reportConfig = new SimplePdfReportConfiguration();
         reportConfig.setSizePageToContent(true);
         reportConfig.setForceLineBreakPolicy(false);
+        reportConfig.setStartPageIndex(startPageIndex);
+        reportConfig.setEndPageIndex(endPageIndex);
 
         SimplePdfExporterConfiguration exportConfig = new SimplePdfExporterConfiguration();
         exportConfig.setMetadataAuthor(author);
@@ -53,54 +59,53 @@ public class SimpleReportExporter {
 
         exporter.setConfiguration(reportConfig);
         exporter.setConfiguration(exportConfig);
-        try {
-            exporter.exportReport();
-        } catch (JRException ex) {
-            Logger.getLogger(SimpleReportFiller.class.getName()).log(Level.SEVERE, null, ex);
-        }
+        export(exporter, jasperPrint);
     }
 
-    public void exportToXlsx(String fileName, String sheetName) {
+    public void exportToXlsx(JasperPrint jasperPrint, OutputStream outputStream, String sheetName) {
         JRXlsxExporter exporter = new JRXlsxExporter();
 
         exporter.setExporterInput(new SimpleExporterInput(jasperPrint));
-        exporter.setExporterOutput(new SimpleOutputStreamExporterOutput(fileName));
+        exporter.setExporterOutput(new SimpleOutputStreamExporterOutput(outputStream));
 
         SimpleXlsxReportConfiguration reportConfig = new SimpleXlsxReportConfiguration();
         reportConfig.setSheetNames(new String[] { sheetName });
 
         exporter.setConfiguration(reportConfig);
-
-        try {
-            exporter.exportReport();
-        } catch (JRException ex) {
-            Logger.getLogger(SimpleReportFiller.class.getName()).log(Level.SEVERE, null, ex);
-        }
+        export(exporter, jasperPrint);
     }
 
-    public void exportToCsv(String fileName) {
+    public void exportToCsv(JasperPrint jasperPrint, Writer writer) {
         JRCsvExporter exporter = new JRCsvExporter();
 
         exporter.setExporterInput(new SimpleExporterInput(jasperPrint));
-        exporter.setExporterOutput(new SimpleWriterExporterOutput(fileName));
-
-        try {
-            exporter.exportReport();
-        } catch (JRException ex) {
-            Logger.getLogger(SimpleReportFiller.class.getName()).log(Level.SEVERE, null, ex);
-        }
+        exporter.setExporterOutput(new SimpleWriterExporterOutput(writer));
+        export(exporter, jasperPrint);
+        flush(writer, jasperPrint);
     }
 
-    public void exportToHtml(String fileName) {
+    public void exportToHtml(JasperPrint jasperPrint, Writer writer) {
         HtmlExporter exporter = new HtmlExporter();
 
         exporter.setExporterInput(new SimpleExporterInput(jasperPrint));
-        exporter.setExporterOutput(new SimpleHtmlExporterOutput(fileName));
+        exporter.setExporterOutput(new SimpleHtmlExporterOutput(writer));
+        export(exporter, jasperPrint);
+        flush(writer, jasperPrint);
+    }
 
+    private static void export(Exporter<?, ?, ?, ?> exporter, JasperPrint jasperPrint) {
         try {
             exporter.exportReport();
-        } catch (JRException ex) {
-            Logger.getLogger(SimpleReportFiller.class.getName()).log(Level.SEVERE, null, ex);
+        } catch (JRException e) {
+            throw new ReportGenerationException("Could not export report: " + jasperPrint.getName(), e);
+        }
+    }
+
+    private static void flush(Writer writer, JasperPrint jasperPrint) {
+        try {
+            writer.flush();
+        } catch (IOException e) {
+            throw new ReportGenerationException("Could not export report: " + jasperPrint.getName(), e);
         }
     }
 }
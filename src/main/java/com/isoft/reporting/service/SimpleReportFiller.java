@@ -1,90 +1,117 @@
 package com.isoft.reporting.service;
-import com.isoft.reporting.domain.Employee;
-import net.sf.jasperreports.engine.*;
-import net.sf.jasperreports.engine.data.JRBeanCollectionDataSource;
-import net.sf.jasperreports.engine.util.JRSaver;
-import org.springframework.beans.factory.annotation.Autowired;
+
+import net.sf.jasperreports.engine.JRDataSource;
+import net.sf.jasperreports.engine.JRException;
+import net.sf.jasperreports.engine.JRParameter;
+import net.sf.jasperreports.engine.JRVirtualizer;
+import net.sf.jasperreports.engine.JasperPrint;
+import net.sf.jasperreports.engine.JasperReport;
+import net.sf.jasperreports.engine.JasperReportsContext;
+import net.sf.jasperreports.engine.fill.FillListener;
+import net.sf.jasperreports.engine.fill.JRAbstractLRUVirtualizer;
+import net.sf.jasperreports.engine.fill.JRFiller;
+import net.sf.jasperreports.engine.fill.ReportFiller;
 import org.springframework.stereotype.Component;
 
 import javax.sql.DataSource;
-import java.io.InputStream;
+import java.sql.Connection;
 import java.sql.SQLException;
-import java.util.ArrayList;
 import java.util.HashMap;
-import java.util.List;
 import java.util.Map;
-import java.util.logging.Level;
-import java.util.logging.Logger;
 
+/**
+ * Fills compiled reports with data.
+ * <p>
+ * The filler keeps no per-request state and can be shared between concurrent callers.
+ */
 @Component
 public class SimpleReportFiller {
 
-    private String reportFileName;
-
-    private JasperReport jasperReport;
-
-    private JasperPrint jasperPrint;
+    private final DataSource dataSource;
 
-    @Autowired
-    private DataSource dataSource;
+    private final JasperReportsContext jasperReportsContext;
 
-    private Map<String, Object> parameters;
-
-    public SimpleReportFiller() {
-        parameters = new HashMap<>();
+    public SimpleReportFiller(DataSource dataSource, JasperReportsContext jasperReportsContext) {
+        this.dataSource = dataSource;
+        this.jasperReportsContext = jasperReportsContext;
     }
 
-    public void prepareReport() {
-        compileReport();
-        fillReport();
+    /**
+     * Fill a report using a connection from the application data source.
+     *
+     * @param jasperReport the compiled report.
+     * @param parameters the report parameters.
+     * @return the filled report.
+     */
+    public JasperPrint fillReport(JasperReport jasperReport, Map<String, Object> parameters) {
+        return fillReport(jasperReport, parameters, null, null);
     }
 
-    public void compileReport() {
-        try {
-            InputStream reportStream = getClass().getResourceAsStream("/".concat(reportFileName));
-            jasperReport = JasperCompileManager.compileReport(reportStream);
-            JRSaver.saveObject(jasperReport, reportFileName.replace(".jrxml", ".jasper"));
-        } catch (JRException ex) {
-            Logger.getLogger(SimpleReportFiller.class.getName()).log(Level.SEVERE, null, ex);
+    /**
+     * Fill a report using a connection from the application data source, notifying a listener of the progress.
+     *
+     * @param jasperReport the compiled report.
+     * @param parameters the report parameters.
+     * @param virtualizer the virtualizer the pages are stored with, can be {@code null} to keep them on the heap.
+     * @param fillListener the listener notified as pages are generated, can be {@code null}.
+     * @return the filled report.
+     */
+    public JasperPrint fillReport(JasperReport jasperReport, Map<String, Object> parameters, JRVirtualizer virtualizer, FillListener fillListener) {
+        Map<String, Object> fillParameters = fillParameters(parameters, virtualizer);
+        try (Connection connection = dataSource.getConnection()) {
+            return readOnly(createFiller(jasperReport, fillListener).fill(fillParameters, connection), virtualizer);
+        } catch (JRException | SQLException e) {
+            throw new ReportGenerationException("Could not fill report: " + jasperReport.getName(), e);
         }
     }
 
-    public void fillReport() {
+    /**
+     * Fill a report from a data source, notifying a listener of the progress.
+     *
+     * @param jasperReport the compiled report.
+     * @param parameters the report parameters.
+     * @param reportDataSource the rows of the report.
+     * @param virtualizer the virtualizer the pages are stored with, can be {@code null} to keep them on the heap.
+     * @param fillListener the listener notified as pages are generated, can be {@code null}.
+     * @return the filled report.
+     */
+    public JasperPrint fillReport(
+        JasperReport jasperReport,
+        Map<String, Object> parameters,
+        JRDataSource reportDataSource,
+        JRVirtualizer virtualizer,
+        FillListener fillListener
+    ) {
+        Map<String, Object> fillParameters = fillParameters(parameters, virtualizer);
         try {
-//            List<Employee> employees = new ArrayList<>();
-//            JRBeanCollectionDataSource dataSource = new JRBeanCollectionDataSource(employees);
-            jasperPrint = JasperFillManager.fillReport(jasperReport, parameters, dataSource.getConnection());
-        } catch (JRException | SQLException ex) {
-            Logger.getLogger(SimpleReportFiller.class.getName()).log(Level.SEVERE, null, ex);
+            return readOnly(createFiller(jasperReport, fillListener).fill(fillParameters, reportDataSource), virtualizer);
+        } catch (JRException e) {
+            throw new ReportGenerationException("Could not fill report: " + jasperReport.getName(), e);
         }
     }
 
-    public DataSource getDataSource() {
-        return dataSource;
-    }
-
-    public void setDataSource(DataSource dataSource) {
-        this.dataSource = dataSource;
-    }
-
-    public Map<String, Object> getParameters() {
-        return parameters;
-    }
-
-    public void setParameters(Map<String, Object> parameters) {
-        this.parameters = parameters;
-    }
-
-    public String getReportFileName() {
-        return reportFileName;
-    }
-
-    public void setReportFileName(String reportFileName) {
-        this.reportFileName = reportFileName;
+    private static Map<String, Object> fillParameters(Map<String, Object> parameters, JRVirtualizer virtualizer) {
+        // The fill adds built-in parameters to the map it is given, so it gets its own copy.
+        Map<String, Object> fillParameters = new HashMap<>(parameters);
+        if (virtualizer != null) {
+            fillParameters.put(JRParameter.REPORT_VIRTUALIZER, virtualizer);
+        }
+        return fillParameters;
     }
 
-    public JasperPrint getJasperPrint() {
+    private static JasperPrint readOnly(JasperPrint jasperPrint, JRVirtualizer virtualizer) {
+        // Pages swapped in during the export do not need to be written again.
+        if (virtualizer instanceof JRAbstractLRUVirtualizer) {
+            ((JRAbstractLRUVirtualizer) virtualizer).setReadOnly(true);
+        }
         return jasperPrint;
     }
 
+    private ReportFiller createFiller(JasperReport jasperReport, FillListener fillListener) throws JRException {
+        ReportFiller filler = JRFiller.createReportFiller(jasperReportsContext, jasperReport);
+        if (fillListener != null) {
+            filler.addFillListener(fillListener);
+        }
+        return filler;
+    }
 }
@@ -16,7 +16,19 @@ public class EmailDTO implements Serializable {
 
 
     private Long employeeId;
-    
+
+    public EmailDTO() {
+    }
+
+    /**
+     * Constructor used by the projection queries, which read the DTO without loading the entity.
+     */
+    public EmailDTO(Long id, String address, Long employeeId) {
+        this.id = id;
+        this.address = address;
+        this.employeeId = employeeId;
+    }
+
     public Long getId() {
         return id;
     }
@@ -18,7 +18,19 @@ public class EmployeeDTO implements Serializable {
 
     private Double salary;
 
-    
+    public EmployeeDTO() {
+    }
+
+    /**
+     * Constructor used by the projection queries, which read the DTO without loading the entity.
+     */
+    public EmployeeDTO(Long id, String firstName, String lastName, Double salary) {
+        this.id = id;
+        this.firstName = firstName;
+        this.lastName = lastName;
+        this.salary = salary;
+    }
+
     public Long getId() {
         return id;
     }
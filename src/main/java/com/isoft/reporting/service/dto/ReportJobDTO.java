@@ -0,0 +1,148 @@
+package com.isoft.reporting.service.dto;
+
+import java.io.Serializable;
+import java.time.Instant;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * A DTO for the status of an asynchronous report job.
+ */
+public class ReportJobDTO implements Serializable {
+
+    /**
+     * The lifecycle of a report job.
+     */
+    public enum Status {
+        QUEUED,
+        RUNNING,
+        COMPLETED,
+        FAILED
+    }
+
+    private String id;
+
+    private String template;
+
+    private List<String> formats;
+
+    private Status status;
+
+    private int pagesFilled;
+
+    private Instant submittedDate;
+
+    private Instant startedDate;
+
+    private Instant finishedDate;
+
+    private String errorMessage;
+
+    public String getId() {
+        return id;
+    }
+
+    public void setId(String id) {
+        this.id = id;
+    }
+
+    public String getTemplate() {
+        return template;
+    }
+
+    public void setTemplate(String template) {
+        this.template = template;
+    }
+
+    public List<String> getFormats() {
+        return formats;
+    }
+
+    public void setFormats(List<String> formats) {
+        this.formats = formats;
+    }
+
+    public Status getStatus() {
+        return status;
+    }
+
+    public void setStatus(Status status) {
+        this.status = status;
+    }
+
+    public int getPagesFilled() {
+        return pagesFilled;
+    }
+
+    public void setPagesFilled(int pagesFilled) {
+        this.pagesFilled = pagesFilled;
+    }
+
+    public Instant getSubmittedDate() {
+        return submittedDate;
+    }
+
+    public void setSubmittedDate(Instant submittedDate) {
+        this.submittedDate = submittedDate;
+    }
+
+    public Instant getStartedDate() {
+        return startedDate;
+    }
+
+    public void setStartedDate(Instant startedDate) {
+        this.startedDate = startedDate;
+    }
+
+    public Instant getFinishedDate() {
+        return finishedDate;
+    }
+
+    public void setFinishedDate(Instant finishedDate) {
+        this.finishedDate = finishedDate;
+    }
+
+    public String getErrorMessage() {
+        return errorMessage;
+    }
+
+    public void setErrorMessage(String errorMessage) {
+        this.errorMessage = errorMessage;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (o == null || getClass() != o.getClass()) {
+            return false;
+        }
+
+        ReportJobDTO reportJobDTO = (ReportJobDTO) o;
+        if (reportJobDTO.getId() == null || getId() == null) {
+            return false;
+        }
+        return Objects.equals(getId(), reportJobDTO.getId());
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hashCode(getId());
+    }
+
+    @Override
+    public String toString() {
+        return "ReportJobDTO{" +
+            "id='" + getId() + "'" +
+            ", template='" + getTemplate() + "'" +
+            ", formats=" + getFormats() +
+            ", status=" + getStatus() +
+            ", pagesFilled=" + getPagesFilled() +
+            ", submittedDate='" + getSubmittedDate() + "'" +
+            ", startedDate='" + getStartedDate() + "'" +
+            ", finishedDate='" + getFinishedDate() + "'" +
+            ", errorMessage='" + getErrorMessage() + "'" +
+            "}";
+    }
+}
@@ -0,0 +1,52 @@
+package com.isoft.reporting.service.dto;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A DTO describing a report to generate.
+ */
+public class ReportRequestDTO implements Serializable {
+
+    private String template;
+
+    private Map<String, Object> parameters = new HashMap<>();
+
+    private List<String> formats = new ArrayList<>();
+
+    public String getTemplate() {
+        return template;
+    }
+
+    public void setTemplate(String template) {
+        this.template = template;
+    }
+
+    public Map<String, Object> getParameters() {
+        return parameters;
+    }
+
+    public void setParameters(Map<String, Object> parameters) {
+        this.parameters = parameters;
+    }
+
+    public List<String> getFormats() {
+        return formats;
+    }
+
+    public void setFormats(List<String> formats) {
+        this.formats = formats;
+    }
+
+    @Override
+    public String toString() {
+        return "ReportRequestDTO{" +
+            "template='" + getTemplate() + "'" +
+            ", parameters=" + getParameters() +
+            ", formats=" + getFormats() +
+            "}";
+    }
+}
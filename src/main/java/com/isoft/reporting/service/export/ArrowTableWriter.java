@@ -0,0 +1,230 @@
+package com.isoft.reporting.service.export;
+
+import org.apache.arrow.memory.BufferAllocator;
+import org.apache.arrow.memory.RootAllocator;
+import org.apache.arrow.vector.BigIntVector;
+import org.apache.arrow.vector.FieldVector;
+import org.apache.arrow.vector.Float8Vector;
+import org.apache.arrow.vector.IntVector;
+import org.apache.arrow.vector.VarCharVector;
+import org.apache.arrow.vector.VectorSchemaRoot;
+import org.apache.arrow.vector.dictionary.Dictionary;
+import org.apache.arrow.vector.dictionary.DictionaryProvider;
+import org.apache.arrow.vector.ipc.ArrowStreamWriter;
+import org.apache.arrow.vector.types.FloatingPointPrecision;
+import org.apache.arrow.vector.types.pojo.ArrowType;
+import org.apache.arrow.vector.types.pojo.DictionaryEncoding;
+import org.apache.arrow.vector.types.pojo.Field;
+import org.apache.arrow.vector.types.pojo.FieldType;
+import org.apache.arrow.vector.types.pojo.Schema;
+
+import java.io.BufferedOutputStream;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Writes a table in the Apache Arrow IPC streaming format, read by analytics tools such as pyarrow, pandas,
+ * Polars or DuckDB.
+ * <p>
+ * Rows are buffered into record batches of a fixed number of rows, written as they fill up, so that memory use does
+ * not depend on the number of rows. {@link Long} columns are written as 64-bit integers, {@link Double} columns as
+ * 64-bit floating point numbers and {@link String} columns as UTF-8. {@link Column#isCategorical() Categorical}
+ * columns are dictionary encoded, with a dictionary sent before each record batch and replacing the previous one.
+ */
+public class ArrowTableWriter implements TableWriter {
+
+    public static final int DEFAULT_BATCH_ROWS = 16384;
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private static final ArrowType.Int INDEX_TYPE = new ArrowType.Int(32, true);
+
+    private final ResponseStream out;
+
+    private final int batchRows;
+
+    private final BufferAllocator allocator = new RootAllocator();
+
+    private final DictionaryProvider.MapDictionaryProvider dictionaries = new DictionaryProvider.MapDictionaryProvider();
+
+    private final Map<Long, Map<String, Integer>> dictionaryIndexes = new HashMap<>();
+
+    private VectorSchemaRoot root;
+
+    private ArrowStreamWriter writer;
+
+    private int rowCount;
+
+    private boolean finished;
+
+    private boolean closed;
+
+    public ArrowTableWriter(OutputStream outputStream) {
+        this(outputStream, DEFAULT_BATCH_ROWS);
+    }
+
+    ArrowTableWriter(OutputStream outputStream, int batchRows) {
+        this.out = new ResponseStream(new BufferedOutputStream(outputStream, BUFFER_SIZE));
+        this.batchRows = batchRows;
+    }
+
+    @Override
+    public void writeHeader(List<Column> columns) throws IOException {
+        List<Field> fields = new ArrayList<>();
+        for (int i = 0; i < columns.size(); i++) {
+            fields.add(createField(columns.get(i), i));
+        }
+        root = VectorSchemaRoot.create(new Schema(fields), allocator);
+        root.getFieldVectors().forEach(vector -> vector.setInitialCapacity(batchRows));
+        root.allocateNew();
+        writer = new ArrowStreamWriter(root, dictionaries, out);
+        writer.start();
+    }
+
+    @Override
+    public void writeRow(Object[] values) throws IOException {
+        List<FieldVector> vectors = root.getFieldVectors();
+        for (int i = 0; i < values.length; i++) {
+            setValue(vectors.get(i), values[i]);
+        }
+        rowCount++;
+        if (rowCount == batchRows) {
+            writeBatch();
+        }
+    }
+
+    @Override
+    public void finish() throws IOException {
+        if (rowCount > 0) {
+            writeBatch();
+        }
+        writer.end();
+        out.flush();
+        finished = true;
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        try {
+            out.flush();
+        } finally {
+            // Closing the writer ends the stream, which must not look complete if the export failed.
+            out.discard = !finished;
+            if (writer != null) {
+                writer.close();
+            }
+            if (root != null) {
+                root.close();
+            }
+            dictionaries.close();
+            allocator.close();
+        }
+    }
+
+    private Field createField(Column column, int index) {
+        if (column.getType() == Long.class) {
+            return Field.nullable(column.getName(), new ArrowType.Int(64, true));
+        }
+        if (column.getType() == Double.class) {
+            return Field.nullable(column.getName(), new ArrowType.FloatingPoint(FloatingPointPrecision.DOUBLE));
+        }
+        if (column.getType() != String.class) {
+            throw new IllegalArgumentException("Unsupported type of column " + column.getName() + ": " + column.getType().getName());
+        }
+        if (!column.isCategorical()) {
+            return Field.nullable(column.getName(), ArrowType.Utf8.INSTANCE);
+        }
+        // The dictionary id is the index of the column.
+        DictionaryEncoding encoding = new DictionaryEncoding(index, false, INDEX_TYPE);
+        VarCharVector values = new VarCharVector(column.getName(), allocator);
+        values.allocateNew();
+        dictionaries.put(new Dictionary(values, encoding));
+        dictionaryIndexes.put(encoding.getId(), new HashMap<>());
+        return new Field(column.getName(), new FieldType(true, INDEX_TYPE, encoding), null);
+    }
+
+    private void setValue(FieldVector vector, Object value) {
+        if (value == null) {
+            vector.setNull(rowCount);
+        } else if (vector instanceof BigIntVector) {
+            ((BigIntVector) vector).setSafe(rowCount, ((Number) value).longValue());
+        } else if (vector instanceof Float8Vector) {
+            ((Float8Vector) vector).setSafe(rowCount, ((Number) value).doubleValue());
+        } else if (vector instanceof VarCharVector) {
+            ((VarCharVector) vector).setSafe(rowCount, value.toString().getBytes(StandardCharsets.UTF_8));
+        } else {
+            ((IntVector) vector).setSafe(rowCount, indexOf(vector, value.toString()));
+        }
+    }
+
+    private int indexOf(FieldVector vector, String value) {
+        long id = vector.getField().getDictionary().getId();
+        VarCharVector values = (VarCharVector) dictionaries.lookup(id).getVector();
+        Map<String, Integer> indexes = dictionaryIndexes.get(id);
+        return indexes.computeIfAbsent(value, key -> {
+            int index = indexes.size();
+            values.setSafe(index, key.getBytes(StandardCharsets.UTF_8));
+            return index;
+        });
+    }
+
+    private void writeBatch() throws IOException {
+        root.setRowCount(rowCount);
+        dictionaryIndexes.forEach((id, indexes) -> dictionaries.lookup(id).getVector().setValueCount(indexes.size()));
+        // Dictionaries that changed since the previous batch are written before it.
+        writer.writeBatch();
+        root.getFieldVectors().forEach(FieldVector::reset);
+        dictionaryIndexes.forEach((id, indexes) -> {
+            dictionaries.lookup(id).getVector().reset();
+            indexes.clear();
+        });
+        rowCount = 0;
+    }
+
+    /**
+     * The stream written by Arrow, which leaves the underlying stream open and can drop what is written once an export failed.
+     */
+    private static final class ResponseStream extends FilterOutputStream {
+        private boolean discard;
+
+        ResponseStream(OutputStream out) {
+            super(out);
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            if (!discard) {
+                out.write(b);
+            }
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            if (!discard) {
+                out.write(b, off, len);
+            }
+        }
+
+        @Override
+        public void flush() throws IOException {
+            if (!discard) {
+                out.flush();
+            }
+        }
+
+        @Override
+        public void close() throws IOException {
+            flush();
+        }
+    }
+}
@@ -0,0 +1,56 @@
+package com.isoft.reporting.service.export;
+
+/**
+ * A column of an exported table.
+ * <p>
+ * Typed formats write the values with the type of their column. Categorical columns hold few distinct values,
+ * such as names, and are dictionary encoded by the formats supporting it.
+ */
+public final class Column {
+
+    private final String name;
+
+    private final Class<?> type;
+
+    private final boolean categorical;
+
+    private Column(String name, Class<?> type, boolean categorical) {
+        this.name = name;
+        this.type = type;
+        this.categorical = categorical;
+    }
+
+    /**
+     * @param name the name of the column.
+     * @param type the type of the values: {@link Long}, {@link Double} or {@link String}.
+     * @return the column.
+     */
+    public static Column of(String name, Class<?> type) {
+        return new Column(name, type, false);
+    }
+
+    /**
+     * @param name the name of the column.
+     * @return a column of text values, with few distinct values.
+     */
+    public static Column categorical(String name) {
+        return new Column(name, String.class, true);
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public Class<?> getType() {
+        return type;
+    }
+
+    public boolean isCategorical() {
+        return categorical;
+    }
+
+    @Override
+    public String toString() {
+        return name;
+    }
+}
@@ -0,0 +1,88 @@
+package com.isoft.reporting.service.export;
+
+import com.isoft.reporting.config.ApplicationProperties.Export.Csv.QuoteMode;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+/**
+ * Writes a table as CSV (RFC 4180), encoded in UTF-8, through a buffer.
+ * <p>
+ * Values are quoted with double quotes, either all of them or only those containing the delimiter, a quote or a
+ * line break, and quotes inside values are doubled. Lines end with CRLF.
+ */
+public class CsvTableWriter implements TableWriter {
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private static final char QUOTE = '"';
+
+    private final Writer writer;
+
+    private final char delimiter;
+
+    private final QuoteMode quoteMode;
+
+    public CsvTableWriter(OutputStream outputStream, char delimiter, QuoteMode quoteMode) {
+        if (delimiter == QUOTE || delimiter == '\r' || delimiter == '\n') {
+            throw new IllegalArgumentException("Invalid CSV delimiter: " + delimiter);
+        }
+        this.writer = new BufferedWriter(new OutputStreamWriter(outputStream, StandardCharsets.UTF_8), BUFFER_SIZE);
+        this.delimiter = delimiter;
+        this.quoteMode = quoteMode;
+    }
+
+    @Override
+    public void writeHeader(List<Column> columns) throws IOException {
+        writeRow(columns.stream().map(Column::getName).toArray());
+    }
+
+    @Override
+    public void writeRow(Object[] values) throws IOException {
+        for (int i = 0; i < values.length; i++) {
+            if (i > 0) {
+                writer.write(delimiter);
+            }
+            if (values[i] != null) {
+                writeValue(values[i].toString());
+            }
+        }
+        writer.write("\r\n");
+    }
+
+    @Override
+    public void finish() throws IOException {
+        writer.flush();
+    }
+
+    private void writeValue(String value) throws IOException {
+        if (quoteMode != QuoteMode.ALL && !needsQuotes(value)) {
+            writer.write(value);
+            return;
+        }
+        writer.write(QUOTE);
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == QUOTE) {
+                writer.write(QUOTE);
+            }
+            writer.write(c);
+        }
+        writer.write(QUOTE);
+    }
+
+    private boolean needsQuotes(String value) {
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == delimiter || c == QUOTE || c == '\r' || c == '\n') {
+                return true;
+            }
+        }
+        return false;
+    }
+}
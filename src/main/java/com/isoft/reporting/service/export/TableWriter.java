@@ -0,0 +1,46 @@
+package com.isoft.reporting.service.export;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * Writes a table, row by row, to a tabular document format.
+ * <p>
+ * Rows are written as they come, so that writers keep no more than a bounded number of rows in memory.
+ */
+public interface TableWriter extends Closeable {
+
+    /**
+     * Write the columns, before any row.
+     *
+     * @param columns the columns.
+     * @throws IOException if the document cannot be written.
+     */
+    void writeHeader(List<Column> columns) throws IOException;
+
+    /**
+     * Write a row.
+     *
+     * @param values the values of the row, in column order and of the column types, {@code null} for missing values.
+     * @throws IOException if the document cannot be written.
+     */
+    void writeRow(Object[] values) throws IOException;
+
+    /**
+     * Complete the document, leaving the underlying stream open.
+     *
+     * @throws IOException if the document cannot be written.
+     */
+    void finish() throws IOException;
+
+    /**
+     * Release the resources of the writer, leaving the underlying stream open. A document which was not finished is
+     * left incomplete.
+     *
+     * @throws IOException if the resources cannot be released.
+     */
+    @Override
+    default void close() throws IOException {
+    }
+}
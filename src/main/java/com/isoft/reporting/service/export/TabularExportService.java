@@ -0,0 +1,106 @@
+package com.isoft.reporting.service.export;
+
+import com.isoft.reporting.config.ApplicationProperties;
+import com.isoft.reporting.service.EmailQueryService;
+import com.isoft.reporting.service.EmployeeQueryService;
+import com.isoft.reporting.service.dto.EmailCriteria;
+import com.isoft.reporting.service.dto.EmployeeCriteria;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.function.BiFunction;
+
+/**
+ * Service for exporting employees and emails as tables, without filling a report.
+ * <p>
+ * Rows are read in batches of columns, in id order with each batch starting after the last id of the previous one,
+ * and written as they are read. Memory use does not depend on the number of rows, and each batch runs in its own
+ * short transaction, so that an extract does not hold a connection while the client reads it.
+ */
+@Service
+public class TabularExportService {
+
+    public static final List<Column> EMPLOYEE_COLUMNS = Collections.unmodifiableList(Arrays.asList(
+        Column.of("id", Long.class),
+        Column.categorical("firstName"),
+        Column.categorical("lastName"),
+        Column.of("salary", Double.class)
+    ));
+
+    public static final List<Column> EMAIL_COLUMNS = Collections.unmodifiableList(Arrays.asList(
+        Column.of("id", Long.class),
+        Column.of("address", String.class),
+        Column.of("employeeId", Long.class)
+    ));
+
+    private final Logger log = LoggerFactory.getLogger(TabularExportService.class);
+
+    private final EmployeeQueryService employeeQueryService;
+
+    private final EmailQueryService emailQueryService;
+
+    private final ApplicationProperties applicationProperties;
+
+    public TabularExportService(
+        EmployeeQueryService employeeQueryService,
+        EmailQueryService emailQueryService,
+        ApplicationProperties applicationProperties
+    ) {
+        this.employeeQueryService = employeeQueryService;
+        this.emailQueryService = emailQueryService;
+        this.applicationProperties = applicationProperties;
+    }
+
+    /**
+     * Export the employees matching the criteria.
+     *
+     * @param criteria the criteria the employees should match.
+     * @param writer the writer of the table, with the {@link #EMPLOYEE_COLUMNS} columns.
+     * @return the number of rows written.
+     * @throws IOException if the table cannot be written.
+     */
+    public long exportEmployees(EmployeeCriteria criteria, TableWriter writer) throws IOException {
+        log.debug("Request to export employees : {}", criteria);
+        return export(EMPLOYEE_COLUMNS, (afterId, limit) -> employeeQueryService.findColumnsByCriteria(criteria, afterId, limit), writer);
+    }
+
+    /**
+     * Export the emails matching the criteria.
+     *
+     * @param criteria the criteria the emails should match.
+     * @param writer the writer of the table, with the {@link #EMAIL_COLUMNS} columns.
+     * @return the number of rows written.
+     * @throws IOException if the table cannot be written.
+     */
+    public long exportEmails(EmailCriteria criteria, TableWriter writer) throws IOException {
+        log.debug("Request to export emails : {}", criteria);
+        return export(EMAIL_COLUMNS, (afterId, limit) -> emailQueryService.findColumnsByCriteria(criteria, afterId, limit), writer);
+    }
+
+    private long export(List<Column> columns, BiFunction<Long, Integer, List<Object[]>> batchLoader, TableWriter writer) throws IOException {
+        int batchSize = applicationProperties.getExport().getBatchSize();
+        writer.writeHeader(columns);
+        long count = 0;
+        Long afterId = null;
+        List<Object[]> batch;
+        do {
+            batch = batchLoader.apply(afterId, batchSize);
+            for (Object[] row : batch) {
+                writer.writeRow(row);
+            }
+            count += batch.size();
+            if (!batch.isEmpty()) {
+                // The id is the first column.
+                afterId = (Long) batch.get(batch.size() - 1)[0];
+            }
+        } while (batch.size() == batchSize);
+        writer.finish();
+        log.debug("Exported {} rows", count);
+        return count;
+    }
+}
@@ -0,0 +1,255 @@
+package com.isoft.reporting.service.export;
+
+import java.io.BufferedWriter;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+/**
+ * Writes a table as an XLSX workbook, streaming each row into the compressed document as it is written.
+ * <p>
+ * No row is kept once written, so memory use does not depend on the number of rows. Sheets are limited to
+ * {@value #MAX_ROWS_PER_SHEET} rows: longer tables continue on new sheets, each starting with the header row.
+ * Numbers and booleans are written as such, other values as text.
+ */
+public class XlsxTableWriter implements TableWriter {
+
+    /**
+     * The maximum number of rows of a sheet, header included.
+     */
+    public static final int MAX_ROWS_PER_SHEET = 1048576;
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private static final int MAX_SHEET_NAME_LENGTH = 31;
+
+    private static final String SPREADSHEET_NAMESPACE = "http://schemas.openxmlformats.org/spreadsheetml/2006/main";
+
+    private static final String RELATIONSHIPS_NAMESPACE = "http://schemas.openxmlformats.org/officeDocument/2006/relationships";
+
+    private static final String PACKAGE_RELATIONSHIPS_NAMESPACE = "http://schemas.openxmlformats.org/package/2006/relationships";
+
+    private final ZipOutputStream zip;
+
+    private final Writer writer;
+
+    private final String sheetName;
+
+    private final int maxRowsPerSheet;
+
+    private final List<String> sheetNames = new ArrayList<>();
+
+    private Object[] header;
+
+    private boolean sheetOpen;
+
+    private int rowIndex;
+
+    public XlsxTableWriter(OutputStream outputStream, String sheetName) {
+        this(outputStream, sheetName, MAX_ROWS_PER_SHEET);
+    }
+
+    XlsxTableWriter(OutputStream outputStream, String sheetName, int maxRowsPerSheet) {
+        // The underlying stream belongs to the caller.
+        this.zip = new ZipOutputStream(new FilterOutputStream(outputStream) {
+            @Override
+            public void write(byte[] b, int off, int len) throws IOException {
+                out.write(b, off, len);
+            }
+
+            @Override
+            public void close() throws IOException {
+                flush();
+            }
+        });
+        this.writer = new BufferedWriter(new OutputStreamWriter(zip, StandardCharsets.UTF_8), BUFFER_SIZE);
+        this.sheetName = sheetName;
+        this.maxRowsPerSheet = maxRowsPerSheet;
+    }
+
+    @Override
+    public void writeHeader(List<Column> columns) throws IOException {
+        header = columns.stream().map(Column::getName).toArray();
+        writeRow(header);
+    }
+
+    @Override
+    public void writeRow(Object[] values) throws IOException {
+        if (!sheetOpen || rowIndex == maxRowsPerSheet) {
+            startSheet();
+        }
+        rowIndex++;
+        writer.write("<row r=\"");
+        writer.write(Integer.toString(rowIndex));
+        writer.write("\">");
+        for (int i = 0; i < values.length; i++) {
+            if (values[i] != null) {
+                writeCell(columnName(i) + rowIndex, values[i]);
+            }
+        }
+        writer.write("</row>");
+    }
+
+    @Override
+    public void finish() throws IOException {
+        if (!sheetOpen) {
+            startSheet();
+        }
+        endSheet();
+        writeEntry("[Content_Types].xml", contentTypes());
+        writeEntry("_rels/.rels", "<?xml version=\"1.0\" encoding=\"UTF-8\" standalone=\"yes\"?>"
+            + "<Relationships xmlns=\"" + PACKAGE_RELATIONSHIPS_NAMESPACE + "\">"
+            + "<Relationship Id=\"rId1\" Type=\"" + RELATIONSHIPS_NAMESPACE + "/officeDocument\" Target=\"xl/workbook.xml\"/>"
+            + "</Relationships>");
+        writeEntry("xl/workbook.xml", workbook());
+        writeEntry("xl/_rels/workbook.xml.rels", workbookRelationships());
+        writeEntry("xl/styles.xml", "<?xml version=\"1.0\" encoding=\"UTF-8\" standalone=\"yes\"?>"
+            + "<styleSheet xmlns=\"" + SPREADSHEET_NAMESPACE + "\">"
+            + "<fonts count=\"1\"><font><sz val=\"11\"/><name val=\"Calibri\"/></font></fonts>"
+            + "<fills count=\"2\"><fill><patternFill patternType=\"none\"/></fill><fill><patternFill patternType=\"gray125\"/></fill></fills>"
+            + "<borders count=\"1\"><border><left/><right/><top/><bottom/><diagonal/></border></borders>"
+            + "<cellStyleXfs count=\"1\"><xf numFmtId=\"0\" fontId=\"0\" fillId=\"0\" borderId=\"0\"/></cellStyleXfs>"
+            + "<cellXfs count=\"1\"><xf numFmtId=\"0\" fontId=\"0\" fillId=\"0\" borderId=\"0\" xfId=\"0\"/></cellXfs>"
+            + "</styleSheet>");
+        zip.finish();
+        zip.flush();
+    }
+
+    private void startSheet() throws IOException {
+        if (sheetOpen) {
+            endSheet();
+        }
+        sheetNames.add(sheetNames.isEmpty() ? sheetName(sheetName, "") : sheetName(sheetName, " (" + (sheetNames.size() + 1) + ")"));
+        zip.putNextEntry(new ZipEntry("xl/worksheets/sheet" + sheetNames.size() + ".xml"));
+        writer.write("<?xml version=\"1.0\" encoding=\"UTF-8\" standalone=\"yes\"?>");
+        writer.write("<worksheet xmlns=\"" + SPREADSHEET_NAMESPACE + "\"><sheetData>");
+        sheetOpen = true;
+        rowIndex = 0;
+        if (header != null && sheetNames.size() > 1) {
+            writeRow(header);
+        }
+    }
+
+    private void endSheet() throws IOException {
+        writer.write("</sheetData></worksheet>");
+        writer.flush();
+        zip.closeEntry();
+        sheetOpen = false;
+    }
+
+    private void writeCell(String reference, Object value) throws IOException {
+        writer.write("<c r=\"");
+        writer.write(reference);
+        if (value instanceof Boolean) {
+            writer.write("\" t=\"b\"><v>");
+            writer.write((Boolean) value ? "1" : "0");
+            writer.write("</v></c>");
+        } else if (isFinite(value)) {
+            writer.write("\"><v>");
+            writer.write(value instanceof BigDecimal ? ((BigDecimal) value).toPlainString() : value.toString());
+            writer.write("</v></c>");
+        } else {
+            writer.write("\" t=\"inlineStr\"><is><t xml:space=\"preserve\">");
+            writeEscaped(value.toString());
+            writer.write("</t></is></c>");
+        }
+    }
+
+    private void writeEscaped(String value) throws IOException {
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            switch (c) {
+                case '<':
+                    writer.write("&lt;");
+                    break;
+                case '>':
+                    writer.write("&gt;");
+                    break;
+                case '&':
+                    writer.write("&amp;");
+                    break;
+                case '"':
+                    writer.write("&quot;");
+                    break;
+                default:
+                    // Control characters cannot be written in XML 1.0.
+                    if (c >= 0x20 || c == '\t' || c == '\n' || c == '\r') {
+                        writer.write(c);
+                    }
+            }
+        }
+    }
+
+    private void writeEntry(String name, String content) throws IOException {
+        zip.putNextEntry(new ZipEntry(name));
+        writer.write(content);
+        writer.flush();
+        zip.closeEntry();
+    }
+
+    private String contentTypes() {
+        StringBuilder xml = new StringBuilder("<?xml version=\"1.0\" encoding=\"UTF-8\" standalone=\"yes\"?>")
+            .append("<Types xmlns=\"http://schemas.openxmlformats.org/package/2006/content-types\">")
+            .append("<Default Extension=\"rels\" ContentType=\"application/vnd.openxmlformats-package.relationships+xml\"/>")
+            .append("<Default Extension=\"xml\" ContentType=\"application/xml\"/>")
+            .append("<Override PartName=\"/xl/workbook.xml\" ContentType=\"application/vnd.openxmlformats-officedocument.spreadsheetml.sheet.main+xml\"/>")
+            .append("<Override PartName=\"/xl/styles.xml\" ContentType=\"application/vnd.openxmlformats-officedocument.spreadsheetml.styles+xml\"/>");
+        for (int i = 1; i <= sheetNames.size(); i++) {
+            xml.append("<Override PartName=\"/xl/worksheets/sheet").append(i)
+                .append(".xml\" ContentType=\"application/vnd.openxmlformats-officedocument.spreadsheetml.worksheet+xml\"/>");
+        }
+        return xml.append("</Types>").toString();
+    }
+
+    private String workbook() {
+        StringBuilder xml = new StringBuilder("<?xml version=\"1.0\" encoding=\"UTF-8\" standalone=\"yes\"?>")
+            .append("<workbook xmlns=\"").append(SPREADSHEET_NAMESPACE).append("\" xmlns:r=\"").append(RELATIONSHIPS_NAMESPACE).append("\"><sheets>");
+        for (int i = 1; i <= sheetNames.size(); i++) {
+            xml.append("<sheet name=\"").append(sheetNames.get(i - 1).replace("&", "&amp;").replace("<", "&lt;").replace("\"", "&quot;")).append("\" sheetId=\"").append(i).append("\" r:id=\"rId").append(i).append("\"/>");
+        }
+        return xml.append("</sheets></workbook>").toString();
+    }
+
+    private String workbookRelationships() {
+        StringBuilder xml = new StringBuilder("<?xml version=\"1.0\" encoding=\"UTF-8\" standalone=\"yes\"?>")
+            .append("<Relationships xmlns=\"").append(PACKAGE_RELATIONSHIPS_NAMESPACE).append("\">");
+        int i = 1;
+        for (; i <= sheetNames.size(); i++) {
+            xml.append("<Relationship Id=\"rId").append(i).append("\" Type=\"").append(RELATIONSHIPS_NAMESPACE)
+                .append("/worksheet\" Target=\"worksheets/sheet").append(i).append(".xml\"/>");
+        }
+        xml.append("<Relationship Id=\"rId").append(i).append("\" Type=\"").append(RELATIONSHIPS_NAMESPACE).append("/styles\" Target=\"styles.xml\"/>");
+        return xml.append("</Relationships>").toString();
+    }
+
+    private static boolean isFinite(Object value) {
+        if (value instanceof Double || value instanceof Float) {
+            double number = ((Number) value).doubleValue();
+            return !Double.isNaN(number) && !Double.isInfinite(number);
+        }
+        return value instanceof Number;
+    }
+
+    private static String sheetName(String name, String suffix) {
+        // Sheet names cannot contain []:*?/\
+        String sanitized = name.replaceAll("[\\[\\]:*?/\\\\]", "_");
+        int length = Math.min(sanitized.length(), MAX_SHEET_NAME_LENGTH - suffix.length());
+        return sanitized.substring(0, length) + suffix;
+    }
+
+    private static String columnName(int index) {
+        StringBuilder name = new StringBuilder();
+        for (int i = index + 1; i > 0; i = (i - 1) / 26) {
+            name.insert(0, (char) ('A' + (i - 1) % 26));
+        }
+        return name.toString();
+    }
+}
@@ -5,9 +5,11 @@ import com.isoft.reporting.domain.Email;
 import com.isoft.reporting.repository.EmailRepository;
 import com.isoft.reporting.service.dto.EmailDTO;
 import com.isoft.reporting.service.mapper.EmailMapper;
+import com.isoft.reporting.service.report.ReportDataChangedEvent;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
@@ -28,9 +30,12 @@ public class EmailServiceImpl implements EmailService {
 
     private final EmailMapper emailMapper;
 
-    public EmailServiceImpl(EmailRepository emailRepository, EmailMapper emailMapper) {
+    private final ApplicationEventPublisher eventPublisher;
+
+    public EmailServiceImpl(EmailRepository emailRepository, EmailMapper emailMapper, ApplicationEventPublisher eventPublisher) {
         this.emailRepository = emailRepository;
         this.emailMapper = emailMapper;
+        this.eventPublisher = eventPublisher;
     }
 
     /**
@@ -44,6 +49,7 @@ public class EmailServiceImpl implements EmailService {
         log.debug("Request to save Email : {}", emailDTO);
         Email email = emailMapper.toEntity(emailDTO);
         email = emailRepository.save(email);
+        eventPublisher.publishEvent(new ReportDataChangedEvent(Email.class));
         return emailMapper.toDto(email);
     }
 
@@ -57,8 +63,8 @@ public class EmailServiceImpl implements EmailService {
     @Transactional(readOnly = true)
     public Page<EmailDTO> findAll(Pageable pageable) {
         log.debug("Request to get all Emails");
-        return emailRepository.findAll(pageable)
-            .map(emailMapper::toDto);
+        // Read straight into DTOs, without loading the entities.
+        return emailRepository.findAllProjectedBy(pageable);
     }
 
     /**
@@ -84,5 +90,6 @@ public class EmailServiceImpl implements EmailService {
     public void delete(Long id) {
         log.debug("Request to delete Email : {}", id);
         emailRepository.deleteById(id);
+        eventPublisher.publishEvent(new ReportDataChangedEvent(Email.class));
     }
 }
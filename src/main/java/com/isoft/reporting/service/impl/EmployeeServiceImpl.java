@@ -5,9 +5,11 @@ import com.isoft.reporting.domain.Employee;
 import com.isoft.reporting.repository.EmployeeRepository;
 import com.isoft.reporting.service.dto.EmployeeDTO;
 import com.isoft.reporting.service.mapper.EmployeeMapper;
+import com.isoft.reporting.service.report.ReportDataChangedEvent;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
@@ -28,9 +30,12 @@ public class EmployeeServiceImpl implements EmployeeService {
 
     private final EmployeeMapper employeeMapper;
 
-    public EmployeeServiceImpl(EmployeeRepository employeeRepository, EmployeeMapper employeeMapper) {
+    private final ApplicationEventPublisher eventPublisher;
+
+    public EmployeeServiceImpl(EmployeeRepository employeeRepository, EmployeeMapper employeeMapper, ApplicationEventPublisher eventPublisher) {
         this.employeeRepository = employeeRepository;
         this.employeeMapper = employeeMapper;
+        this.eventPublisher = eventPublisher;
     }
 
     /**
@@ -44,6 +49,7 @@ public class EmployeeServiceImpl implements EmployeeService {
         log.debug("Request to save Employee : {}", employeeDTO);
         Employee employee = employeeMapper.toEntity(employeeDTO);
         employee = employeeRepository.save(employee);
+        eventPublisher.publishEvent(new ReportDataChangedEvent(Employee.class));
         return employeeMapper.toDto(employee);
     }
 
@@ -57,8 +63,8 @@ public class EmployeeServiceImpl implements EmployeeService {
     @Transactional(readOnly = true)
     public Page<EmployeeDTO> findAll(Pageable pageable) {
         log.debug("Request to get all Employees");
-        return employeeRepository.findAll(pageable)
-            .map(employeeMapper::toDto);
+        // Read straight into DTOs, without loading the entities.
+        return employeeRepository.findAllProjectedBy(pageable);
     }
 
     /**
@@ -84,5 +90,6 @@ public class EmployeeServiceImpl implements EmployeeService {
     public void delete(Long id) {
         log.debug("Request to delete Employee : {}", id);
         employeeRepository.deleteById(id);
+        eventPublisher.publishEvent(new ReportDataChangedEvent(Employee.class));
     }
 }
@@ -0,0 +1,42 @@
+package com.isoft.reporting.service.report;
+
+import com.isoft.reporting.service.SimpleReportExporter;
+import net.sf.jasperreports.engine.JasperPrint;
+import org.springframework.core.annotation.Order;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * The CSV format, encoded in UTF-8.
+ */
+@Component
+@Order(3)
+public class CsvReportFormat implements ReportFormat {
+
+    private static final MediaType MEDIA_TYPE = new MediaType("text", "csv", StandardCharsets.UTF_8);
+
+    private final SimpleReportExporter reportExporter;
+
+    public CsvReportFormat(SimpleReportExporter reportExporter) {
+        this.reportExporter = reportExporter;
+    }
+
+    @Override
+    public String getName() {
+        return "csv";
+    }
+
+    @Override
+    public MediaType getMediaType() {
+        return MEDIA_TYPE;
+    }
+
+    @Override
+    public void export(JasperPrint jasperPrint, OutputStream outputStream) {
+        reportExporter.exportToCsv(jasperPrint, new OutputStreamWriter(outputStream, StandardCharsets.UTF_8));
+    }
+}
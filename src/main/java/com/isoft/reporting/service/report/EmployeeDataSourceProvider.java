@@ -0,0 +1,54 @@
+package com.isoft.reporting.service.report;
+
+import com.isoft.reporting.domain.Employee_;
+import com.isoft.reporting.service.EmployeeQueryService;
+import com.isoft.reporting.service.dto.EmployeeCriteria;
+import com.isoft.reporting.service.dto.EmployeeDTO;
+import net.sf.jasperreports.engine.JRDataSource;
+import org.springframework.data.domain.Sort;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.OptionalLong;
+
+/**
+ * Provides the employees matching the {@value #PARAMETER_CRITERIA} report parameter, through the {@link EmployeeQueryService}.
+ * <p>
+ * Fields are {@link EmployeeDTO} property names.
+ */
+@Component
+public class EmployeeDataSourceProvider implements ReportDataSourceProvider {
+
+    public static final String PARAMETER_CRITERIA = "criteria";
+
+    private static final int PAGE_SIZE = 500;
+
+    private final EmployeeQueryService employeeQueryService;
+
+    public EmployeeDataSourceProvider(EmployeeQueryService employeeQueryService) {
+        this.employeeQueryService = employeeQueryService;
+    }
+
+    @Override
+    public String getName() {
+        return "employees";
+    }
+
+    @Override
+    public long countRows(Map<String, Object> parameters) {
+        EmployeeCriteria criteria = (EmployeeCriteria) parameters.get(PARAMETER_CRITERIA);
+        // The statistics of the database spare a count of the whole table, filtered rows are counted.
+        OptionalLong estimate = employeeQueryService.estimateCountByCriteria(criteria);
+        return estimate.isPresent() ? estimate.getAsLong() : employeeQueryService.countByCriteria(criteria);
+    }
+
+    @Override
+    public JRDataSource createDataSource(Map<String, Object> parameters) {
+        EmployeeCriteria criteria = (EmployeeCriteria) parameters.get(PARAMETER_CRITERIA);
+        return new PagedDataSource<EmployeeDTO>(
+            (after, page) -> employeeQueryService.findByCriteria(criteria, after, page),
+            PAGE_SIZE,
+            Sort.by(Employee_.ID)
+        );
+    }
+}
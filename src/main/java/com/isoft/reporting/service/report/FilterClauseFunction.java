@@ -0,0 +1,129 @@
+package com.isoft.reporting.service.report;
+
+import io.github.jhipster.service.filter.Filter;
+import io.github.jhipster.service.filter.RangeFilter;
+import io.github.jhipster.service.filter.StringFilter;
+import net.sf.jasperreports.engine.JRRuntimeException;
+import net.sf.jasperreports.engine.JRValueParameter;
+import net.sf.jasperreports.engine.query.JRClauseFunction;
+import net.sf.jasperreports.engine.query.JRClauseTokens;
+import net.sf.jasperreports.engine.query.JRQueryClauseContext;
+import org.springframework.beans.BeanWrapperImpl;
+
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * SQL clause function translating a JHipster {@link Filter} to a condition with bound parameters.
+ * <p>
+ * The clause is written {@code $X{FILTER, column, parameter}}, or {@code $X{FILTER, column, parameter, property}}
+ * to use a filter of a criteria parameter, such as {@code $X{FILTER, LAST_NAME, criteria, lastName}}. Filter values
+ * are always bound, so the query text only depends on which operators are used, and a missing filter matches all rows.
+ * Conditions mirror the ones built by {@link io.github.jhipster.service.QueryService}.
+ */
+public class FilterClauseFunction implements JRClauseFunction {
+
+    public static final String CLAUSE_ID = "FILTER";
+
+    private static final int POSITION_COLUMN = 1;
+
+    private static final int POSITION_PARAMETER = 2;
+
+    private static final int POSITION_PROPERTY = 3;
+
+    @Override
+    public void apply(JRClauseTokens clauseTokens, JRQueryClauseContext queryContext) {
+        String column = clauseTokens.getToken(POSITION_COLUMN);
+        String parameterName = clauseTokens.getToken(POSITION_PARAMETER);
+        if (column == null || parameterName == null) {
+            throw new JRRuntimeException("The " + CLAUSE_ID + " clause needs a column and a parameter", (Object[]) null);
+        }
+        Filter<?> filter = getFilter(queryContext.getValueParameter(parameterName), clauseTokens.getToken(POSITION_PROPERTY));
+        Conditions conditions = new Conditions(column, queryContext);
+        if (filter != null) {
+            conditions.compare("=", filter.getEquals());
+            conditions.compare("<>", filter.getNotEquals());
+            conditions.in("IN", filter.getIn());
+            conditions.in("NOT IN", filter.getNotIn());
+            if (filter.getSpecified() != null) {
+                conditions.add(column + (filter.getSpecified() ? " IS NOT NULL" : " IS NULL"));
+            }
+            if (filter instanceof RangeFilter) {
+                RangeFilter<?> rangeFilter = (RangeFilter<?>) filter;
+                conditions.compare(">", rangeFilter.getGreaterThan());
+                conditions.compare(">=", rangeFilter.getGreaterThanOrEqual());
+                conditions.compare("<", rangeFilter.getLessThan());
+                conditions.compare("<=", rangeFilter.getLessThanOrEqual());
+            }
+            if (filter instanceof StringFilter) {
+                StringFilter stringFilter = (StringFilter) filter;
+                conditions.like("LIKE", stringFilter.getContains());
+                conditions.like("NOT LIKE", stringFilter.getDoesNotContain());
+            }
+        }
+        conditions.finish();
+    }
+
+    private static Filter<?> getFilter(JRValueParameter parameter, String property) {
+        Object value = parameter.getValue();
+        if (value != null && property != null) {
+            value = new BeanWrapperImpl(value).getPropertyValue(property);
+        }
+        if (value != null && !(value instanceof Filter)) {
+            throw new JRRuntimeException("The " + CLAUSE_ID + " clause needs a filter, got: " + value.getClass().getName(), (Object[]) null);
+        }
+        return (Filter<?>) value;
+    }
+
+    private static final class Conditions {
+        private final String column;
+        private final JRQueryClauseContext queryContext;
+        private final StringBuffer query;
+        private boolean empty = true;
+
+        private Conditions(String column, JRQueryClauseContext queryContext) {
+            this.column = column;
+            this.queryContext = queryContext;
+            this.query = queryContext.queryBuffer();
+        }
+
+        private void compare(String operator, Object value) {
+            if (value != null) {
+                add(column + " " + operator + " ?");
+                bind(value);
+            }
+        }
+
+        private void in(String operator, List<?> values) {
+            if (values == null || values.isEmpty()) {
+                return;
+            }
+            StringBuilder condition = new StringBuilder(column).append(' ').append(operator).append(" (");
+            for (int i = 0; i < values.size(); i++) {
+                condition.append(i == 0 ? "?" : ", ?");
+            }
+            add(condition.append(')').toString());
+            values.forEach(this::bind);
+        }
+
+        private void like(String operator, String value) {
+            if (value != null) {
+                add("UPPER(" + column + ") " + operator + " ?");
+                bind("%" + value.toUpperCase(Locale.ROOT) + "%");
+            }
+        }
+
+        private void add(String condition) {
+            query.append(empty ? "(" : " AND ").append(condition);
+            empty = false;
+        }
+
+        private void bind(Object value) {
+            queryContext.addQueryParameter(value.getClass(), value);
+        }
+
+        private void finish() {
+            query.append(empty ? "0 = 0" : ")");
+        }
+    }
+}
@@ -0,0 +1,73 @@
+package com.isoft.reporting.service.report;
+
+import com.isoft.reporting.service.KeysetSlice;
+import net.sf.jasperreports.engine.JRException;
+import net.sf.jasperreports.engine.JRField;
+import net.sf.jasperreports.engine.data.JRAbstractBeanDataSource;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+
+import java.util.Iterator;
+import java.util.function.BiFunction;
+
+/**
+ * Bean data source loading its rows one slice at a time.
+ * <p>
+ * Only the current slice is held in memory, whatever the number of rows of the report. Each slice is read with keyset
+ * pagination, seeking past the last row of the previous one, so that neither deep offsets nor count queries are run.
+ * Field names are bean property names, as with {@link net.sf.jasperreports.engine.data.JRBeanCollectionDataSource}.
+ *
+ * @param <T> the type of the rows.
+ */
+public class PagedDataSource<T> extends JRAbstractBeanDataSource {
+
+    private final BiFunction<String, Pageable, KeysetSlice<T>> sliceLoader;
+
+    private final Pageable pageable;
+
+    private KeysetSlice<T> slice;
+
+    private Iterator<T> rows;
+
+    private T current;
+
+    /**
+     * @param sliceLoader loads the slice of rows after a cursor, {@code null} for the first slice.
+     * @param pageSize the number of rows per slice.
+     * @param sort the order of the rows.
+     */
+    public PagedDataSource(BiFunction<String, Pageable, KeysetSlice<T>> sliceLoader, int pageSize, Sort sort) {
+        super(false);
+        this.sliceLoader = sliceLoader;
+        this.pageable = PageRequest.of(0, pageSize, sort);
+    }
+
+    @Override
+    public boolean next() {
+        while (rows == null || !rows.hasNext()) {
+            if (slice != null && !slice.hasNext()) {
+                return false;
+            }
+            slice = sliceLoader.apply(slice == null ? null : slice.getNextCursor().orElse(null), pageable);
+            rows = slice.getContent().iterator();
+            if (slice.getContent().isEmpty()) {
+                return false;
+            }
+        }
+        current = rows.next();
+        return true;
+    }
+
+    @Override
+    public Object getFieldValue(JRField field) throws JRException {
+        return getFieldValue(current, field);
+    }
+
+    @Override
+    public void moveFirst() {
+        slice = null;
+        rows = null;
+        current = null;
+    }
+}
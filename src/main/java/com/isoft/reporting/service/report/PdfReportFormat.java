@@ -0,0 +1,52 @@
+package com.isoft.reporting.service.report;
+
+import com.isoft.reporting.service.SimpleReportExporter;
+import net.sf.jasperreports.engine.JasperPrint;
+import org.springframework.core.annotation.Order;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+
+import java.io.OutputStream;
+
+/**
+ * The PDF format, encrypted and restricted to printing.
+ */
+@Component
+@Order(1)
+public class PdfReportFormat implements ReportFormat {
+
+    private static final MediaType MEDIA_TYPE = MediaType.APPLICATION_PDF;
+
+    private final SimpleReportExporter reportExporter;
+
+    public PdfReportFormat(SimpleReportExporter reportExporter) {
+        this.reportExporter = reportExporter;
+    }
+
+    @Override
+    public String getName() {
+        return "pdf";
+    }
+
+    @Override
+    public MediaType getMediaType() {
+        return MEDIA_TYPE;
+    }
+
+    @Override
+    public void export(JasperPrint jasperPrint, OutputStream outputStream) {
+        reportExporter.exportToPdf(jasperPrint, outputStream, jasperPrint.getName());
+    }
+
+    /**
+     * Export a range of pages of a report.
+     *
+     * @param jasperPrint the filled report.
+     * @param outputStream the stream to write to, left open.
+     * @param startPageIndex the index of the first page, from 0.
+     * @param endPageIndex the index of the last page, inclusive.
+     */
+    public void export(JasperPrint jasperPrint, OutputStream outputStream, int startPageIndex, int endPageIndex) {
+        reportExporter.exportToPdf(jasperPrint, outputStream, jasperPrint.getName(), startPageIndex, endPageIndex);
+    }
+}
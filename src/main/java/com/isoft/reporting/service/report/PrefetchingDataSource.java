@@ -0,0 +1,149 @@
+package com.isoft.reporting.service.report;
+
+import net.sf.jasperreports.engine.JRDataSource;
+import net.sf.jasperreports.engine.JRException;
+import net.sf.jasperreports.engine.JRField;
+import net.sf.jasperreports.engine.data.JRMapCollectionDataSource;
+import org.springframework.util.LinkedCaseInsensitiveMap;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Data source reading ahead a page of rows and loading the child rows of the whole page in one query.
+ * <p>
+ * This replaces a sub-report running its own query for every row of the master report: the sub-report
+ * gets the child rows of the current row from the prefetch field, as an in-memory data source, and runs
+ * no query at all.
+ */
+public class PrefetchingDataSource implements JRDataSource {
+
+    /**
+     * The placeholder replaced by the keys of the current page in the child query.
+     */
+    public static final String KEYS_PLACEHOLDER = "{keys}";
+
+    private final JRDataSource delegate;
+
+    private final JRField[] fields;
+
+    private final String keyField;
+
+    private final String prefetchField;
+
+    private final String childQuery;
+
+    private final int pageSize;
+
+    private final Connection connection;
+
+    private final Deque<Map<String, Object>> rows = new ArrayDeque<>();
+
+    private Map<Object, List<Map<String, ?>>> children = Collections.emptyMap();
+
+    private Map<String, Object> current;
+
+    private boolean exhausted;
+
+    public PrefetchingDataSource(
+        JRDataSource delegate,
+        JRField[] fields,
+        String keyField,
+        String prefetchField,
+        String childQuery,
+        int pageSize,
+        Connection connection
+    ) {
+        this.delegate = delegate;
+        this.fields = fields == null ? new JRField[0] : fields;
+        this.keyField = keyField;
+        this.prefetchField = prefetchField;
+        this.childQuery = childQuery;
+        this.pageSize = pageSize;
+        this.connection = connection;
+    }
+
+    @Override
+    public boolean next() throws JRException {
+        if (rows.isEmpty() && !exhausted) {
+            fetchPage();
+        }
+        current = rows.poll();
+        return current != null;
+    }
+
+    @Override
+    public Object getFieldValue(JRField field) {
+        if (field.getName().equals(prefetchField)) {
+            List<Map<String, ?>> rowChildren = children.get(normalizeKey(current.get(keyField)));
+            return new JRMapCollectionDataSource(rowChildren == null ? Collections.emptyList() : rowChildren);
+        }
+        return current.get(field.getName());
+    }
+
+    private void fetchPage() throws JRException {
+        Set<Object> keys = new LinkedHashSet<>();
+        while (rows.size() < pageSize && delegate.next()) {
+            Map<String, Object> row = new HashMap<>();
+            for (JRField field : fields) {
+                if (!field.getName().equals(prefetchField)) {
+                    row.put(field.getName(), delegate.getFieldValue(field));
+                }
+            }
+            Object key = row.get(keyField);
+            if (key != null) {
+                keys.add(key);
+            }
+            rows.add(row);
+        }
+        exhausted = rows.size() < pageSize;
+        children = keys.isEmpty() ? Collections.emptyMap() : loadChildren(keys);
+    }
+
+    private Map<Object, List<Map<String, ?>>> loadChildren(Set<Object> keys) throws JRException {
+        String sql = childQuery.replace(KEYS_PLACEHOLDER, String.join(",", Collections.nCopies(keys.size(), "?")));
+        Map<Object, List<Map<String, ?>>> result = new HashMap<>();
+        try (PreparedStatement statement = connection.prepareStatement(sql)) {
+            int index = 1;
+            for (Object key : keys) {
+                statement.setObject(index++, key);
+            }
+            try (ResultSet resultSet = statement.executeQuery()) {
+                ResultSetMetaData metaData = resultSet.getMetaData();
+                while (resultSet.next()) {
+                    // Column labels differ in case between databases, field names do not.
+                    Map<String, Object> child = new LinkedCaseInsensitiveMap<>();
+                    for (int column = 1; column <= metaData.getColumnCount(); column++) {
+                        child.put(metaData.getColumnLabel(column), resultSet.getObject(column));
+                    }
+                    result.computeIfAbsent(normalizeKey(resultSet.getObject(1)), k -> new ArrayList<>()).add(child);
+                }
+            }
+        } catch (SQLException e) {
+            throw new JRException("Could not prefetch " + prefetchField, e);
+        }
+        return result;
+    }
+
+    /**
+     * Integral keys are compared by value, whatever type the driver and the field use for them.
+     */
+    private static Object normalizeKey(Object key) {
+        if (key instanceof Integer || key instanceof Long || key instanceof Short) {
+            return ((Number) key).longValue();
+        }
+        return key;
+    }
+}
@@ -0,0 +1,93 @@
+package com.isoft.reporting.service.report;
+
+import net.sf.jasperreports.engine.JRDataSource;
+import net.sf.jasperreports.engine.JRDataset;
+import net.sf.jasperreports.engine.JRException;
+import net.sf.jasperreports.engine.JRParameter;
+import net.sf.jasperreports.engine.JRPropertiesMap;
+import net.sf.jasperreports.engine.JRValueParameter;
+import net.sf.jasperreports.engine.JasperReportsContext;
+import net.sf.jasperreports.engine.query.AbstractQueryExecuterFactory;
+import net.sf.jasperreports.engine.query.JRJdbcQueryExecuterFactory;
+import net.sf.jasperreports.engine.query.JRQueryExecuter;
+
+import java.sql.Connection;
+import java.util.Map;
+
+/**
+ * SQL query executer factory adding a prefetching mode to the standard JDBC one.
+ * <p>
+ * A dataset opts in with the following properties, and then gets a {@link PrefetchingDataSource}:
+ * <ul>
+ *     <li>{@value #PROPERTY_FIELD}: the field exposing the child rows of each row as a {@link JRDataSource};</li>
+ *     <li>{@value #PROPERTY_KEY}: the field holding the key of each row;</li>
+ *     <li>{@value #PROPERTY_QUERY}: the query loading the child rows, with the key in the first column and
+ *     {@value PrefetchingDataSource#KEYS_PLACEHOLDER} standing for the list of keys;</li>
+ *     <li>{@value #PROPERTY_PAGE_SIZE}: the number of rows read ahead and loaded together, optional.</li>
+ * </ul>
+ * Datasets without these properties are filled exactly as with {@link JRJdbcQueryExecuterFactory}.
+ */
+public class PrefetchingQueryExecuterFactory extends AbstractQueryExecuterFactory {
+
+    public static final String PROPERTY_PREFIX = "com.isoft.reporting.prefetch.";
+
+    public static final String PROPERTY_FIELD = PROPERTY_PREFIX + "field";
+
+    public static final String PROPERTY_KEY = PROPERTY_PREFIX + "key";
+
+    public static final String PROPERTY_QUERY = PROPERTY_PREFIX + "query";
+
+    public static final String PROPERTY_PAGE_SIZE = PROPERTY_PREFIX + "page-size";
+
+    private static final int DEFAULT_PAGE_SIZE = 500;
+
+    private final JRJdbcQueryExecuterFactory delegate = new JRJdbcQueryExecuterFactory();
+
+    @Override
+    public Object[] getBuiltinParameters() {
+        return delegate.getBuiltinParameters();
+    }
+
+    @Override
+    public JRQueryExecuter createQueryExecuter(
+        JasperReportsContext jasperReportsContext,
+        JRDataset dataset,
+        Map<String, ? extends JRValueParameter> parameters
+    ) throws JRException {
+        JRQueryExecuter queryExecuter = delegate.createQueryExecuter(jasperReportsContext, dataset, parameters);
+        JRPropertiesMap properties = dataset.getPropertiesMap();
+        if (!properties.containsProperty(PROPERTY_FIELD)) {
+            return queryExecuter;
+        }
+        return new JRQueryExecuter() {
+            @Override
+            public JRDataSource createDatasource() throws JRException {
+                String pageSize = properties.getProperty(PROPERTY_PAGE_SIZE);
+                return new PrefetchingDataSource(
+                    queryExecuter.createDatasource(),
+                    dataset.getFields(),
+                    properties.getProperty(PROPERTY_KEY),
+                    properties.getProperty(PROPERTY_FIELD),
+                    properties.getProperty(PROPERTY_QUERY),
+                    pageSize == null ? DEFAULT_PAGE_SIZE : Integer.parseInt(pageSize),
+                    (Connection) parameters.get(JRParameter.REPORT_CONNECTION).getValue()
+                );
+            }
+
+            @Override
+            public void close() {
+                queryExecuter.close();
+            }
+
+            @Override
+            public boolean cancelQuery() throws JRException {
+                return queryExecuter.cancelQuery();
+            }
+        };
+    }
+
+    @Override
+    public boolean supportsQueryParameterType(String className) {
+        return delegate.supportsQueryParameterType(className);
+    }
+}
@@ -0,0 +1,22 @@
+package com.isoft.reporting.service.report;
+
+/**
+ * Published when data that reports are filled from is created, updated or deleted.
+ */
+public class ReportDataChangedEvent {
+
+    private final Class<?> entityClass;
+
+    public ReportDataChangedEvent(Class<?> entityClass) {
+        this.entityClass = entityClass;
+    }
+
+    public Class<?> getEntityClass() {
+        return entityClass;
+    }
+
+    @Override
+    public String toString() {
+        return "ReportDataChangedEvent{entityClass=" + entityClass.getSimpleName() + "}";
+    }
+}
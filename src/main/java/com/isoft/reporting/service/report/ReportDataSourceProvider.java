@@ -0,0 +1,43 @@
+package com.isoft.reporting.service.report;
+
+import net.sf.jasperreports.engine.JRDataSource;
+
+import java.util.Map;
+
+/**
+ * Provides the rows of the reports that are not filled from their own SQL query.
+ * <p>
+ * A template selects its provider by name with the {@value #PROPERTY_DATA_SOURCE} report property. A template
+ * running its own SQL query can name a provider with the {@value #PROPERTY_ROW_COUNT} report property instead, to
+ * count its rows with that provider.
+ */
+public interface ReportDataSourceProvider {
+
+    String PROPERTY_DATA_SOURCE = "com.isoft.reporting.data-source";
+
+    String PROPERTY_ROW_COUNT = "com.isoft.reporting.row-count";
+
+    /**
+     * @return the name templates refer to this provider with.
+     */
+    String getName();
+
+    /**
+     * Create the data source to fill a report with.
+     *
+     * @param parameters the report parameters.
+     * @return the data source.
+     */
+    JRDataSource createDataSource(Map<String, Object> parameters);
+
+    /**
+     * Count the rows of a report, to decide whether it should be virtualized. The count may be an estimate, or an upper
+     * bound for a template filtering the rows further.
+     *
+     * @param parameters the report parameters.
+     * @return the number of rows, or a negative number if it is not known.
+     */
+    default long countRows(Map<String, Object> parameters) {
+        return -1;
+    }
+}
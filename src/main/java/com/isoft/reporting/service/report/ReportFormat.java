@@ -0,0 +1,41 @@
+package com.isoft.reporting.service.report;
+
+import net.sf.jasperreports.engine.JasperPrint;
+import org.springframework.http.MediaType;
+
+import java.io.OutputStream;
+
+/**
+ * A document format filled reports can be exported to.
+ * <p>
+ * Formats are discovered as Spring beans by the {@link ReportFormatRegistry}, so a new format only needs a new
+ * implementation of this interface.
+ */
+public interface ReportFormat {
+
+    /**
+     * @return the name of the format, as used in requests and as file extension.
+     */
+    String getName();
+
+    /**
+     * @return the content type of the exported documents.
+     */
+    MediaType getMediaType();
+
+    /**
+     * Export a report to this format.
+     *
+     * @param jasperPrint the filled report.
+     * @param outputStream the stream to write to, left open.
+     */
+    void export(JasperPrint jasperPrint, OutputStream outputStream);
+
+    /**
+     * @param baseName the name of the document, without extension.
+     * @return the file name of a document exported to this format.
+     */
+    default String getFileName(String baseName) {
+        return baseName + "." + getName();
+    }
+}
@@ -0,0 +1,171 @@
+package com.isoft.reporting.service.report;
+
+import com.isoft.reporting.config.ApplicationProperties;
+import com.isoft.reporting.service.ReportGenerationException;
+import net.sf.jasperreports.engine.JasperPrint;
+import org.springframework.http.MediaType;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PreDestroy;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Registry of the {@link ReportFormat} beans, and export of a filled report to several formats at once.
+ */
+@Component
+public class ReportFormatRegistry {
+
+    /**
+     * The format used when the client does not ask for a specific one.
+     */
+    public static final String DEFAULT_FORMAT = "pdf";
+
+    private final Map<String, ReportFormat> formats = new LinkedHashMap<>();
+
+    private final ExecutorService exportExecutor;
+
+    public ReportFormatRegistry(List<ReportFormat> formats, ApplicationProperties applicationProperties) {
+        formats.forEach(format -> this.formats.put(format.getName(), format));
+        this.exportExecutor = Executors.newFixedThreadPool(applicationProperties.getReport().getScheduler().getExportThreads(),
+            new CustomizableThreadFactory("report-export-"));
+    }
+
+    /**
+     * @return the names of the supported formats.
+     */
+    public Set<String> getNames() {
+        return Collections.unmodifiableSet(formats.keySet());
+    }
+
+    /**
+     * Get a format by name.
+     *
+     * @param name the name of the format, case insensitive.
+     * @return the format, or empty if it is not supported.
+     */
+    public Optional<ReportFormat> find(String name) {
+        return name == null ? Optional.empty() : Optional.ofNullable(formats.get(name.toLowerCase(Locale.ROOT)));
+    }
+
+    /**
+     * Get the formats with the given names.
+     *
+     * @param names the names of the formats, or empty for the default format.
+     * @return the formats, without duplicates.
+     * @throws IllegalArgumentException if a format is not supported.
+     */
+    public List<ReportFormat> resolve(Collection<String> names) {
+        if (names == null || names.isEmpty()) {
+            return Collections.singletonList(formats.get(DEFAULT_FORMAT));
+        }
+        List<ReportFormat> result = new ArrayList<>();
+        for (String name : names) {
+            ReportFormat format = find(name).orElseThrow(() -> new IllegalArgumentException("Unsupported report format: " + name));
+            if (!result.contains(format)) {
+                result.add(format);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Get the preferred format for an {@code Accept} header.
+     *
+     * @param acceptedTypes the media types accepted by the client.
+     * @return the format, the default one if the client accepts any type, or empty if no format is acceptable.
+     */
+    public Optional<ReportFormat> negotiate(List<MediaType> acceptedTypes) {
+        if (acceptedTypes == null || acceptedTypes.isEmpty()) {
+            return find(DEFAULT_FORMAT);
+        }
+        List<MediaType> sorted = new ArrayList<>(acceptedTypes);
+        MediaType.sortBySpecificityAndQuality(sorted);
+        for (MediaType acceptedType : sorted) {
+            if (MediaType.ALL.equalsTypeAndSubtype(acceptedType)) {
+                return find(DEFAULT_FORMAT);
+            }
+            for (ReportFormat format : formats.values()) {
+                if (acceptedType.includes(format.getMediaType())) {
+                    return Optional.of(format);
+                }
+            }
+        }
+        return Optional.empty();
+    }
+
+    /**
+     * Export a report to several formats in parallel.
+     * <p>
+     * The exports only read the filled report, so they can share it. They run on a dedicated, fixed pool of
+     * {@code report-export} threads rather than in a lane of the {@link com.isoft.reporting.service.ReportScheduler}:
+     * callers may themselves be running in a lane, and waiting there for queued exports could starve it.
+     *
+     * @param jasperPrint the filled report.
+     * @param formats the formats to export to, at least one.
+     * @param target opens the stream each format is written to; the stream is closed after the export.
+     */
+    public void exportAll(JasperPrint jasperPrint, List<ReportFormat> formats, ExportTarget target) {
+        List<CompletableFuture<Void>> exports = new ArrayList<>();
+        for (ReportFormat format : formats.subList(1, formats.size())) {
+            exports.add(CompletableFuture.runAsync(() -> export(jasperPrint, format, target), exportExecutor));
+        }
+        // The calling thread would only wait otherwise, so it takes the first format.
+        RuntimeException failure = null;
+        try {
+            export(jasperPrint, formats.get(0), target);
+        } catch (RuntimeException e) {
+            failure = e;
+        }
+        for (CompletableFuture<Void> export : exports) {
+            try {
+                export.join();
+            } catch (CompletionException e) {
+                RuntimeException cause = e.getCause() instanceof RuntimeException ? (RuntimeException) e.getCause() : e;
+                if (failure == null) {
+                    failure = cause;
+                } else {
+                    failure.addSuppressed(cause);
+                }
+            }
+        }
+        if (failure != null) {
+            throw failure;
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        exportExecutor.shutdownNow();
+    }
+
+    private static void export(JasperPrint jasperPrint, ReportFormat format, ExportTarget target) {
+        try (OutputStream outputStream = target.open(format)) {
+            format.export(jasperPrint, outputStream);
+        } catch (IOException e) {
+            throw new ReportGenerationException("Could not export report " + jasperPrint.getName() + " to " + format.getName(), e);
+        }
+    }
+
+    /**
+     * Opens the stream a report is exported to.
+     */
+    @FunctionalInterface
+    public interface ExportTarget {
+        OutputStream open(ReportFormat format) throws IOException;
+    }
+}
@@ -0,0 +1,396 @@
+package com.isoft.reporting.service.report;
+
+import com.isoft.reporting.config.ApplicationProperties;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.util.FileSystemUtils;
+
+import javax.annotation.PreDestroy;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.TreeMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Cache of rendered reports, keyed by template, parameters and format.
+ * <p>
+ * Outputs are kept in memory up to a total size; the least recently used ones then spill to files, also bounded by
+ * a total size, beyond which they are dropped. Entries expire after a time-to-live, and are removed by a sweep every
+ * minute if they are not read again. The whole cache is cleared once a change of report data is committed. Outputs
+ * rendered from data read before such a change are not stored, as the cache is versioned.
+ */
+@Component
+public class ReportOutputCache {
+
+    public static final String METRIC_REQUESTS = "report.output.cache.requests";
+
+    public static final String METRIC_SIZE = "report.output.cache.size";
+
+    private final Logger log = LoggerFactory.getLogger(ReportOutputCache.class);
+
+    private final ApplicationProperties.Report.OutputCache properties;
+
+    private final AtomicLong version = new AtomicLong();
+
+    private final Map<Key, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+
+    private long memorySize;
+
+    private long diskSize;
+
+    private Path directory;
+
+    private final Counter hits;
+
+    private final Counter misses;
+
+    public ReportOutputCache(ApplicationProperties applicationProperties, MeterRegistry meterRegistry) {
+        this.properties = applicationProperties.getReport().getOutputCache();
+        this.hits = Counter.builder(METRIC_REQUESTS).tag("result", "hit").register(meterRegistry);
+        this.misses = Counter.builder(METRIC_REQUESTS).tag("result", "miss").register(meterRegistry);
+        Gauge.builder(METRIC_SIZE, this, cache -> cache.getSize(false)).tag("tier", "memory").baseUnit("bytes").register(meterRegistry);
+        Gauge.builder(METRIC_SIZE, this, cache -> cache.getSize(true)).tag("tier", "disk").baseUnit("bytes").register(meterRegistry);
+    }
+
+    /**
+     * Get the current data version, to be read before a report is filled and given back when its output is stored.
+     *
+     * @return the data version.
+     */
+    public long getVersion() {
+        return version.get();
+    }
+
+    /**
+     * Open a cached output.
+     *
+     * @param key the key of the output.
+     * @return the content of the output, to be closed by the caller, or empty if it is not cached.
+     */
+    public Optional<InputStream> get(Key key) {
+        if (!properties.isEnabled()) {
+            return Optional.empty();
+        }
+        synchronized (entries) {
+            Entry entry = entries.get(key);
+            if (entry != null && entry.expiresAt < System.currentTimeMillis()) {
+                remove(key);
+                entry = null;
+            }
+            if (entry != null) {
+                try {
+                    // Opened under the lock, so that the file stays readable even if it is evicted meanwhile.
+                    InputStream content = entry.content != null ? new ByteArrayInputStream(entry.content) : Files.newInputStream(entry.file);
+                    hits.increment();
+                    return Optional.of(content);
+                } catch (IOException e) {
+                    log.warn("Could not read cached report output {}: {}", key, e.getMessage());
+                    remove(key);
+                }
+            }
+        }
+        misses.increment();
+        return Optional.empty();
+    }
+
+    /**
+     * Store an output.
+     *
+     * @param key the key of the output.
+     * @param dataVersion the data version read before the report was filled.
+     * @param content the output.
+     */
+    public void put(Key key, long dataVersion, byte[] content) {
+        if (!properties.isEnabled() || content.length > properties.getMaxEntry().toBytes()) {
+            return;
+        }
+        synchronized (entries) {
+            if (dataVersion != version.get()) {
+                log.debug("Not caching report output {} rendered from stale data", key);
+                return;
+            }
+            remove(key);
+            entries.put(key, new Entry(content, System.currentTimeMillis() + properties.getTimeToLiveSeconds() * 1000L));
+            memorySize += content.length;
+            evict();
+        }
+    }
+
+    /**
+     * Store an output written to a file, unless it is too large to be cached.
+     *
+     * @param key the key of the output.
+     * @param dataVersion the data version read before the report was filled.
+     * @param file the file the output was written to, which stays owned by the caller.
+     */
+    public void put(Key key, long dataVersion, Path file) {
+        if (!properties.isEnabled()) {
+            return;
+        }
+        try {
+            if (Files.size(file) <= properties.getMaxEntry().toBytes()) {
+                put(key, dataVersion, Files.readAllBytes(file));
+            }
+        } catch (IOException e) {
+            log.warn("Could not cache report output {}: {}", key, e.getMessage());
+        }
+    }
+
+    /**
+     * Wrap a stream an output is written to, so that the output is stored once written.
+     *
+     * @param key the key of the output.
+     * @param dataVersion the data version read before the report was filled.
+     * @param out the stream the output is written to.
+     * @return the stream to write the output to.
+     */
+    public Capture capture(Key key, long dataVersion, OutputStream out) {
+        return new Capture(key, dataVersion, out, properties.isEnabled() ? properties.getMaxEntry().toBytes() : -1);
+    }
+
+    /**
+     * Remove all outputs.
+     */
+    public void invalidate() {
+        version.incrementAndGet();
+        synchronized (entries) {
+            log.debug("Invalidating {} cached report outputs", entries.size());
+            new ArrayList<>(entries.keySet()).forEach(this::remove);
+        }
+    }
+
+    /**
+     * Remove the expired outputs.
+     * <p>
+     * This is scheduled to get fired every minute.
+     */
+    @Scheduled(fixedDelay = 60000)
+    public void removeExpired() {
+        long now = System.currentTimeMillis();
+        synchronized (entries) {
+            new ArrayList<>(entries.keySet()).stream().filter(key -> entries.get(key).expiresAt < now).forEach(this::remove);
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onReportDataChanged(ReportDataChangedEvent event) {
+        log.debug("Report data changed : {}", event);
+        invalidate();
+    }
+
+    @PreDestroy
+    public void destroy() {
+        invalidate();
+        synchronized (entries) {
+            if (directory != null) {
+                try {
+                    FileSystemUtils.deleteRecursively(directory);
+                } catch (IOException e) {
+                    log.warn("Could not delete report output cache directory {}: {}", directory, e.getMessage());
+                }
+            }
+        }
+    }
+
+    private long getSize(boolean disk) {
+        synchronized (entries) {
+            return disk ? diskSize : memorySize;
+        }
+    }
+
+    private void evict() {
+        Iterator<Map.Entry<Key, Entry>> memoryEntries = entries.entrySet().iterator();
+        while (memorySize > properties.getMaxMemory().toBytes() && memoryEntries.hasNext()) {
+            Entry entry = memoryEntries.next().getValue();
+            if (entry.content == null) {
+                continue;
+            }
+            memorySize -= entry.content.length;
+            if (spill(entry)) {
+                diskSize += entry.size;
+            } else {
+                memoryEntries.remove();
+            }
+        }
+        Iterator<Map.Entry<Key, Entry>> diskEntries = entries.entrySet().iterator();
+        while (diskSize > properties.getMaxDisk().toBytes() && diskEntries.hasNext()) {
+            Entry entry = diskEntries.next().getValue();
+            if (entry.file == null) {
+                continue;
+            }
+            diskEntries.remove();
+            diskSize -= entry.size;
+            delete(entry.file);
+        }
+    }
+
+    private boolean spill(Entry entry) {
+        if (properties.getMaxDisk().toBytes() < entry.size) {
+            return false;
+        }
+        try {
+            if (directory == null) {
+                directory = Files.createTempDirectory(Paths.get(properties.getDirectory()), "report-output-cache-");
+            }
+            entry.file = Files.write(Files.createTempFile(directory, "report-", ".out"), entry.content);
+            entry.content = null;
+            return true;
+        } catch (IOException e) {
+            log.warn("Could not spill report output to disk: {}", e.getMessage());
+            return false;
+        }
+    }
+
+    private void remove(Key key) {
+        Entry entry = entries.remove(key);
+        if (entry == null) {
+            return;
+        }
+        if (entry.content != null) {
+            memorySize -= entry.size;
+        } else {
+            diskSize -= entry.size;
+            delete(entry.file);
+        }
+    }
+
+    private void delete(Path file) {
+        try {
+            Files.deleteIfExists(file);
+        } catch (IOException e) {
+            log.warn("Could not delete cached report output {}: {}", file, e.getMessage());
+        }
+    }
+
+    /**
+     * Key of a rendered report.
+     */
+    public static final class Key {
+        private final String value;
+
+        private Key(String value) {
+            this.value = value;
+        }
+
+        /**
+         * Create the key of a report.
+         *
+         * @param template the name of the template.
+         * @param parameters the report parameters, compared by their string representation.
+         * @param format the name of the format.
+         * @return the key.
+         */
+        public static Key of(String template, Map<String, Object> parameters, String format) {
+            Map<String, String> normalized = new TreeMap<>();
+            parameters.forEach((name, value) -> {
+                if (value != null) {
+                    normalized.put(name, value instanceof Object[] ? Arrays.deepToString((Object[]) value) : String.valueOf(value));
+                }
+            });
+            return new Key(template + '.' + format + normalized);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            return this == o || (o instanceof Key && value.equals(((Key) o).value));
+        }
+
+        @Override
+        public int hashCode() {
+            return value.hashCode();
+        }
+
+        @Override
+        public String toString() {
+            return value;
+        }
+    }
+
+    /**
+     * Stream writing an output through to the client while keeping a copy of it, stored on {@link #commit()}.
+     */
+    public final class Capture extends OutputStream {
+        private final Key key;
+        private final long dataVersion;
+        private final OutputStream out;
+        private final long maxSize;
+        private ByteArrayOutputStream copy;
+
+        private Capture(Key key, long dataVersion, OutputStream out, long maxSize) {
+            this.key = key;
+            this.dataVersion = dataVersion;
+            this.out = out;
+            this.maxSize = maxSize;
+            this.copy = maxSize < 0 ? null : new ByteArrayOutputStream();
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            write(new byte[] { (byte) b }, 0, 1);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            out.write(b, off, len);
+            if (copy != null) {
+                if (copy.size() + len > maxSize) {
+                    // Too large to be cached, stop copying.
+                    copy = null;
+                } else {
+                    copy.write(b, off, len);
+                }
+            }
+        }
+
+        @Override
+        public void flush() throws IOException {
+            out.flush();
+        }
+
+        @Override
+        public void close() throws IOException {
+            // The underlying stream belongs to the caller.
+            out.flush();
+        }
+
+        /**
+         * Store the written output.
+         */
+        public void commit() {
+            if (copy != null) {
+                put(key, dataVersion, copy.toByteArray());
+            }
+        }
+    }
+
+    private static final class Entry {
+        private final long size;
+        private final long expiresAt;
+        private byte[] content;
+        private Path file;
+
+        private Entry(byte[] content, long expiresAt) {
+            this.size = content.length;
+            this.content = content;
+            this.expiresAt = expiresAt;
+        }
+    }
+}
@@ -0,0 +1,419 @@
+package com.isoft.reporting.service.report;
+
+import com.isoft.reporting.config.ApplicationProperties;
+import com.isoft.reporting.service.FilledReport;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import net.sf.jasperreports.engine.DefaultJasperReportsContext;
+import net.sf.jasperreports.engine.JRException;
+import net.sf.jasperreports.engine.JRPrintPage;
+import net.sf.jasperreports.engine.JRRuntimeException;
+import net.sf.jasperreports.engine.JasperPrint;
+import net.sf.jasperreports.engine.base.JRBasePrintPage;
+import net.sf.jasperreports.engine.util.ContextClassLoaderObjectInputStream;
+import net.sf.jasperreports.engine.util.JRLoader;
+import net.sf.jasperreports.engine.util.JRSaver;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.util.FileSystemUtils;
+
+import javax.annotation.PreDestroy;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.OutputStream;
+import java.io.Serializable;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Cache of filled reports, keyed by a generated run id, so that a report can be exported to other formats
+ * without running its queries and filling it again.
+ * <p>
+ * Reports are serialized to files, keeping them off the heap. Each page is compressed on its own, followed by the
+ * report without its pages, and the pages of a loaded report are read from the file only when an exporter asks
+ * for them: exporting a range of pages reads just those pages. The files are bounded by a total size, beyond
+ * which the least recently used ones are dropped, and expire after a time-to-live. A run is a snapshot: unlike
+ * the {@link ReportOutputCache}, it is not cleared when the report data changes, so that all the formats of a
+ * run hold the same data.
+ */
+@Component
+public class ReportRunCache {
+
+    public static final String METRIC_REQUESTS = "report.run.cache.requests";
+
+    public static final String METRIC_PAGES = "report.run.cache.pages";
+
+    public static final String METRIC_SIZE = "report.run.cache.size";
+
+    private final Logger log = LoggerFactory.getLogger(ReportRunCache.class);
+
+    private final ApplicationProperties.Report.RunCache properties;
+
+    private final Map<String, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+
+    private long size;
+
+    private Path directory;
+
+    private final Counter hits;
+
+    private final Counter misses;
+
+    private final Counter pagesRead;
+
+    public ReportRunCache(ApplicationProperties applicationProperties, MeterRegistry meterRegistry) {
+        this.properties = applicationProperties.getReport().getRunCache();
+        this.hits = Counter.builder(METRIC_REQUESTS).tag("result", "hit").register(meterRegistry);
+        this.misses = Counter.builder(METRIC_REQUESTS).tag("result", "miss").register(meterRegistry);
+        this.pagesRead = Counter.builder(METRIC_PAGES).description("Pages read from cached report runs").register(meterRegistry);
+        Gauge.builder(METRIC_SIZE, this, ReportRunCache::getSize).baseUnit("bytes").register(meterRegistry);
+    }
+
+    /**
+     * Store a filled report.
+     *
+     * @param template the name of the report template.
+     * @param filledReport the filled report, still owned by the caller.
+     * @return the run id, or empty if the report could not be stored.
+     */
+    public Optional<String> put(String template, FilledReport filledReport) {
+        if (!properties.isEnabled()) {
+            return Optional.empty();
+        }
+        Path file = null;
+        try {
+            file = Files.createTempFile(getDirectory(), "run-", ".jrprint");
+            JasperPrint jasperPrint = filledReport.getJasperPrint();
+            List<JRPrintPage> pages = jasperPrint.getPages();
+            long maxSize = properties.getMaxDisk().toBytes();
+            long[] offsets = new long[pages.size() + 1];
+            long fileSize = 0;
+            try (OutputStream out = new BufferedOutputStream(Files.newOutputStream(file))) {
+                for (int i = 0; i < pages.size() && fileSize <= maxSize; i++) {
+                    offsets[i] = fileSize;
+                    // Virtualized pages are copied, as they would otherwise be written along with their virtualization context.
+                    JRBasePrintPage page = new JRBasePrintPage();
+                    page.setElements(new ArrayList<>(pages.get(i).getElements()));
+                    fileSize += write(page, null, out);
+                }
+                offsets[pages.size()] = fileSize;
+                if (fileSize <= maxSize) {
+                    fileSize += write(jasperPrint, pages, out);
+                }
+            }
+            if (fileSize > maxSize) {
+                log.debug("Not caching report run of {}, over {} bytes", template, fileSize);
+                delete(file);
+                return Optional.empty();
+            }
+            String runId = UUID.randomUUID().toString();
+            synchronized (entries) {
+                entries.put(runId, new Entry(template, file, fileSize, offsets,
+                    System.currentTimeMillis() + properties.getTimeToLiveSeconds() * 1000L));
+                size += fileSize;
+                evict();
+            }
+            return Optional.of(runId);
+        } catch (IOException | JRException | RuntimeException e) {
+            log.warn("Could not cache report run of {}: {}", template, e.getMessage());
+            if (file != null) {
+                delete(file);
+            }
+            return Optional.empty();
+        }
+    }
+
+    /**
+     * Load a filled report.
+     * <p>
+     * Only the report without its pages is read here, each page is read when the report is exported.
+     *
+     * @param runId the run id.
+     * @return the run, whose report must be closed once exported, or empty if it is not cached.
+     */
+    public Optional<Run> get(String runId) {
+        Entry entry;
+        FileChannel channel;
+        synchronized (entries) {
+            entry = entries.get(runId);
+            if (entry != null && entry.expiresAt < System.currentTimeMillis()) {
+                remove(runId);
+                entry = null;
+            }
+            if (entry == null) {
+                misses.increment();
+                return Optional.empty();
+            }
+            try {
+                // Opened under the lock, so that the file stays readable even if it is evicted meanwhile.
+                channel = FileChannel.open(entry.file);
+            } catch (IOException e) {
+                log.warn("Could not read cached report run {}: {}", runId, e.getMessage());
+                remove(runId);
+                misses.increment();
+                return Optional.empty();
+            }
+        }
+        StoredPages pages = new StoredPages(channel, entry.offsets);
+        try (InputStream in = read(channel, entry.offsets[pages.size()], entry.size);
+             ObjectInputStream objectIn = new PrintInputStream(in, pages)) {
+            JasperPrint jasperPrint = (JasperPrint) objectIn.readObject();
+            hits.increment();
+            return Optional.of(new Run(entry.template, new FilledReport(jasperPrint, null, pages)));
+        } catch (IOException | ClassNotFoundException | RuntimeException e) {
+            log.warn("Could not read cached report run {}: {}", runId, e.getMessage());
+            pages.close();
+            synchronized (entries) {
+                remove(runId);
+            }
+            misses.increment();
+            return Optional.empty();
+        }
+    }
+
+/**
+     * Remove the expired runs.
+     * <p>
+     * This is scheduled to get fired every minute.
+     */
+    @Scheduled(fixedDelay = 60000)
+    public void removeExpired() {
+        long now = System.currentTimeMillis();
+        synchronized (entries) {
+            new ArrayList<>(entries.keySet()).stream().filter(runId -> entries.get(runId).expiresAt < now).forEach(this::remove);
+        }
+    }
+
+    @PreDestroy
+    public void destroy() {
+        synchronized (entries) {
+            new ArrayList<>(entries.keySet()).forEach(this::remove);
+            if (directory != null) {
+                try {
+                    FileSystemUtils.deleteRecursively(directory);
+                } catch (IOException e) {
+                    log.warn("Could not delete report run cache directory {}: {}", directory, e.getMessage());
+                }
+            }
+        }
+    }
+
+    private Path getDirectory() throws IOException {
+        synchronized (entries) {
+            if (directory == null) {
+                directory = Files.createTempDirectory(Paths.get(properties.getDirectory()), "report-run-cache-");
+            }
+            return directory;
+        }
+    }
+
+    private long getSize() {
+        synchronized (entries) {
+            return size;
+        }
+    }
+
+    private void evict() {
+        Iterator<Entry> iterator = entries.values().iterator();
+        while (size > properties.getMaxDisk().toBytes() && iterator.hasNext()) {
+            Entry entry = iterator.next();
+            iterator.remove();
+            size -= entry.size;
+            delete(entry.file);
+        }
+    }
+
+    private void remove(String runId) {
+        Entry entry = entries.remove(runId);
+        if (entry != null) {
+            size -= entry.size;
+            delete(entry.file);
+        }
+    }
+
+    /**
+     * Write an object as a separately compressed segment.
+     *
+     * @param object the object.
+     * @param pages the pages of the report, to leave out of it, or {@code null}.
+     * @param out the stream to write to, left open.
+     * @return the size of the segment.
+     */
+    private static long write(Object object, List<JRPrintPage> pages, OutputStream out) throws IOException, JRException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (OutputStream content = new GZIPOutputStream(bytes)) {
+            if (pages == null) {
+                JRSaver.saveObject(object, content);
+            } else {
+                ObjectOutputStream objectOut = new PrintOutputStream(content, pages);
+                objectOut.writeObject(object);
+                objectOut.flush();
+            }
+        }
+        bytes.writeTo(out);
+        return bytes.size();
+    }
+
+    private static InputStream read(FileChannel channel, long start, long end) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(Math.toIntExact(end - start));
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer, start + buffer.position()) < 0) {
+                throw new EOFException("Truncated cached report run");
+            }
+        }
+        return new GZIPInputStream(new ByteArrayInputStream(buffer.array()));
+    }
+
+    private void delete(Path file) {
+        try {
+            Files.deleteIfExists(file);
+        } catch (IOException e) {
+            log.warn("Could not delete cached report run {}: {}", file, e.getMessage());
+        }
+    }
+
+    /**
+     * A filled report loaded from the cache.
+     */
+    public static final class Run {
+        private final String template;
+        private final FilledReport filledReport;
+
+        private Run(String template, FilledReport filledReport) {
+            this.template = template;
+            this.filledReport = filledReport;
+        }
+
+        public String getTemplate() {
+            return template;
+        }
+
+        public FilledReport getFilledReport() {
+            return filledReport;
+        }
+    }
+
+    private static final class Entry {
+        private final String template;
+        private final Path file;
+        private final long size;
+        private final long[] offsets;
+        private final long expiresAt;
+
+        private Entry(String template, Path file, long size, long[] offsets, long expiresAt) {
+            this.template = template;
+            this.file = file;
+            this.size = size;
+            this.offsets = offsets;
+            this.expiresAt = expiresAt;
+        }
+    }
+
+    /**
+     * The pages of a loaded report, each read from the file of the run when it is asked for.
+     */
+    private final class StoredPages extends AbstractList<JRPrintPage> implements Closeable {
+        private final FileChannel channel;
+        private final long[] offsets;
+
+        private StoredPages(FileChannel channel, long[] offsets) {
+            this.channel = channel;
+            this.offsets = offsets;
+        }
+
+        @Override
+        public JRPrintPage get(int index) {
+            if (index < 0 || index >= size()) {
+                throw new IndexOutOfBoundsException("Page " + index + " of " + size());
+            }
+            try (InputStream in = read(channel, offsets[index], offsets[index + 1])) {
+                JRPrintPage page = (JRPrintPage) JRLoader.loadObject(in);
+                pagesRead.increment();
+                return page;
+            } catch (IOException | JRException e) {
+                throw new JRRuntimeException(e);
+            }
+        }
+
+        @Override
+        public int size() {
+            return offsets.length - 1;
+        }
+
+        @Override
+        public void close() {
+            try {
+                channel.close();
+            } catch (IOException e) {
+                log.warn("Could not close cached report run: {}", e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Stands for the pages of a report in its serialized form.
+     */
+    private static final class PagesPlaceholder implements Serializable {
+        private static final long serialVersionUID = 1L;
+    }
+
+    /**
+     * Writes a report without its pages.
+     */
+    private static final class PrintOutputStream extends ObjectOutputStream {
+        private final List<JRPrintPage> pages;
+
+        private PrintOutputStream(OutputStream out, List<JRPrintPage> pages) throws IOException {
+            super(out);
+            this.pages = pages;
+            enableReplaceObject(true);
+        }
+
+        @Override
+        protected Object replaceObject(Object obj) {
+            // The synchronized page list of a report is written through a copy, so it is recognized by its pages.
+            return !pages.isEmpty() && obj instanceof List && pages.equals(obj) ? new PagesPlaceholder() : obj;
+        }
+    }
+
+    /**
+     * Reads a report written by {@link PrintOutputStream}, giving it pages read from the file of the run.
+     */
+    private static final class PrintInputStream extends ContextClassLoaderObjectInputStream {
+        private final List<JRPrintPage> pages;
+
+        private PrintInputStream(InputStream in, List<JRPrintPage> pages) throws IOException {
+            super(DefaultJasperReportsContext.getInstance(), in);
+            this.pages = pages;
+            enableResolveObject(true);
+        }
+
+        @Override
+        protected Object resolveObject(Object obj) throws IOException {
+            return obj instanceof PagesPlaceholder ? pages : super.resolveObject(obj);
+        }
+    }
+}
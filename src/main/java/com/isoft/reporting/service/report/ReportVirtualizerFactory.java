@@ -0,0 +1,123 @@
+package com.isoft.reporting.service.report;
+
+import com.isoft.reporting.config.ApplicationProperties;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import net.sf.jasperreports.engine.JRVirtualizable;
+import net.sf.jasperreports.engine.JRVirtualizer;
+import net.sf.jasperreports.engine.JasperReport;
+import net.sf.jasperreports.engine.fill.JRGzipVirtualizer;
+import net.sf.jasperreports.engine.fill.JRSwapFileVirtualizer;
+import net.sf.jasperreports.engine.util.JRSwapFile;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.util.Locale;
+import java.util.function.LongSupplier;
+
+/**
+ * Creates the virtualizers keeping the pages of large reports out of the heap while they are filled and exported.
+ * <p>
+ * A template can choose its mode with the {@value #PROPERTY_VIRTUALIZER} report property ({@code none},
+ * {@code swap-file} or {@code gzip}). Otherwise reports with more rows than the configured threshold use the
+ * configured mode. The pages moved out of and back into the heap are counted in the
+ * {@value #METRIC_PAGES} metric.
+ */
+@Component
+public class ReportVirtualizerFactory {
+
+    public static final String PROPERTY_VIRTUALIZER = "com.isoft.reporting.virtualizer";
+
+    public static final String METRIC_PAGES = "report.virtualizer.pages";
+
+    private final ApplicationProperties.Report.Virtualizer properties;
+
+    private final Counter pagesOut;
+
+    private final Counter pagesIn;
+
+    public ReportVirtualizerFactory(ApplicationProperties applicationProperties, MeterRegistry meterRegistry) {
+        this.properties = applicationProperties.getReport().getVirtualizer();
+        this.pagesOut = Counter.builder(METRIC_PAGES).tag("operation", "out")
+            .description("Report pages moved out of the heap").register(meterRegistry);
+        this.pagesIn = Counter.builder(METRIC_PAGES).tag("operation", "in")
+            .description("Report pages moved back into the heap").register(meterRegistry);
+    }
+
+    /**
+     * Select how a report is virtualized.
+     *
+     * @param jasperReport the report.
+     * @param rowCount counts the rows of the report, only called when the report does not choose its mode.
+     * A negative count means the number of rows is not known.
+     * @return the virtualizer mode.
+     * @throws IllegalArgumentException if the mode of the report is not valid.
+     */
+    public ApplicationProperties.Report.Virtualizer.Mode selectMode(JasperReport jasperReport, LongSupplier rowCount) {
+        String mode = jasperReport.getProperty(PROPERTY_VIRTUALIZER);
+        if (mode != null) {
+            return ApplicationProperties.Report.Virtualizer.Mode.valueOf(mode.trim().toUpperCase(Locale.ROOT).replace('-', '_'));
+        }
+        if (properties.getRowThreshold() > 0 && rowCount.getAsLong() > properties.getRowThreshold()) {
+            return properties.getMode();
+        }
+        return ApplicationProperties.Report.Virtualizer.Mode.NONE;
+    }
+
+    /**
+     * Create a virtualizer, to be used for a single fill.
+     *
+     * @param mode the virtualizer mode.
+     * @return the virtualizer, or {@code null} for {@link ApplicationProperties.Report.Virtualizer.Mode#NONE}.
+     */
+    public JRVirtualizer create(ApplicationProperties.Report.Virtualizer.Mode mode) {
+        switch (mode) {
+            case SWAP_FILE:
+                JRSwapFile swapFile = new JRSwapFile(properties.getDirectory(), properties.getBlockSize(), properties.getMinGrowCount());
+                return new CountingSwapFileVirtualizer(properties.getMaxSize(), swapFile);
+            case GZIP:
+                return new CountingGzipVirtualizer(properties.getMaxSize());
+            default:
+                return null;
+        }
+    }
+
+    private final class CountingSwapFileVirtualizer extends JRSwapFileVirtualizer {
+
+        private CountingSwapFileVirtualizer(int maxSize, JRSwapFile swapFile) {
+            // The virtualizer owns the swap file, so that cleanup() deletes it.
+            super(maxSize, swapFile, true);
+        }
+
+        @Override
+        protected void pageOut(JRVirtualizable o) throws IOException {
+            super.pageOut(o);
+            pagesOut.increment();
+        }
+
+        @Override
+        protected void pageIn(JRVirtualizable o) throws IOException {
+            super.pageIn(o);
+            pagesIn.increment();
+        }
+    }
+
+    private final class CountingGzipVirtualizer extends JRGzipVirtualizer {
+
+        private CountingGzipVirtualizer(int maxSize) {
+            super(maxSize);
+        }
+
+        @Override
+        protected void pageOut(JRVirtualizable o) throws IOException {
+            super.pageOut(o);
+            pagesOut.increment();
+        }
+
+        @Override
+        protected void pageIn(JRVirtualizable o) throws IOException {
+            super.pageIn(o);
+            pagesIn.increment();
+        }
+    }
+}
@@ -0,0 +1,47 @@
+package com.isoft.reporting.service.report;
+
+import com.isoft.reporting.service.ReportTemplateRegistry;
+import net.sf.jasperreports.repo.ReportResource;
+import net.sf.jasperreports.repo.RepositoryService;
+import net.sf.jasperreports.repo.Resource;
+
+/**
+ * JasperReports repository serving compiled templates from the {@link ReportTemplateRegistry}.
+ * <p>
+ * Sub-reports are referenced by the logical name of their template, such as {@code "employeeEmailReport"}, and are
+ * shared by all fills instead of being read and deserialized from a file for each of them. The legacy
+ * {@code "employeeEmailReport.jasper"} form is accepted as well. Other locations are left to the default repositories.
+ */
+public class TemplateRepositoryService implements RepositoryService {
+
+    private final ReportTemplateRegistry templateRegistry;
+
+    public TemplateRepositoryService(ReportTemplateRegistry templateRegistry) {
+        this.templateRegistry = templateRegistry;
+    }
+
+    @Override
+    public Resource getResource(String uri) {
+        return getResource(uri, ReportResource.class);
+    }
+
+    @Override
+    public <K extends Resource> K getResource(String uri, Class<K> resourceType) {
+        if (uri == null || !resourceType.isAssignableFrom(ReportResource.class)) {
+            return null;
+        }
+        String templateName = templateRegistry.resolveTemplateName(uri);
+        if (templateName == null) {
+            return null;
+        }
+        ReportResource resource = new ReportResource();
+        resource.setName(templateName);
+        resource.setReport(templateRegistry.getReport(templateName));
+        return resourceType.cast(resource);
+    }
+
+    @Override
+    public void saveResource(String uri, Resource resource) {
+        throw new UnsupportedOperationException("Report templates are read-only");
+    }
+}
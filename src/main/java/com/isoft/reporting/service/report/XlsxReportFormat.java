@@ -0,0 +1,40 @@
+package com.isoft.reporting.service.report;
+
+import com.isoft.reporting.service.SimpleReportExporter;
+import net.sf.jasperreports.engine.JasperPrint;
+import org.springframework.core.annotation.Order;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+
+import java.io.OutputStream;
+
+/**
+ * The Excel format, with the whole report on a single sheet.
+ */
+@Component
+@Order(2)
+public class XlsxReportFormat implements ReportFormat {
+
+    private static final MediaType MEDIA_TYPE = MediaType.parseMediaType("application/vnd.openxmlformats-officedocument.spreadsheetml.sheet");
+
+    private final SimpleReportExporter reportExporter;
+
+    public XlsxReportFormat(SimpleReportExporter reportExporter) {
+        this.reportExporter = reportExporter;
+    }
+
+    @Override
+    public String getName() {
+        return "xlsx";
+    }
+
+    @Override
+    public MediaType getMediaType() {
+        return MEDIA_TYPE;
+    }
+
+    @Override
+    public void export(JasperPrint jasperPrint, OutputStream outputStream) {
+        reportExporter.exportToXlsx(jasperPrint, outputStream, jasperPrint.getName());
+    }
+}
@@ -1,11 +1,13 @@
 package com.isoft.reporting.web.rest;
 
 import com.isoft.reporting.service.EmailService;
+import com.isoft.reporting.service.KeysetSlice;
 import com.isoft.reporting.web.rest.errors.BadRequestAlertException;
 import com.isoft.reporting.service.dto.EmailDTO;
 import com.isoft.reporting.service.dto.EmailCriteria;
 import com.isoft.reporting.service.EmailQueryService;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
 import io.github.jhipster.web.util.HeaderUtil;
 import io.github.jhipster.web.util.PaginationUtil;
 import io.github.jhipster.web.util.ResponseUtil;
@@ -14,11 +16,13 @@ import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.net.URI;
 import java.net.URISyntaxException;
@@ -43,9 +47,12 @@ public class EmailResource {
 
     private final EmailQueryService emailQueryService;
 
-    public EmailResource(EmailService emailService, EmailQueryService emailQueryService) {
+    private final ObjectMapper objectMapper;
+
+    public EmailResource(EmailService emailService, EmailQueryService emailQueryService, ObjectMapper objectMapper) {
         this.emailService = emailService;
         this.emailQueryService = emailQueryService;
+        this.objectMapper = objectMapper;
     }
 
     /**
@@ -90,19 +97,59 @@ public class EmailResource {
 
     /**
      * {@code GET  /emails} : get all the emails.
+     * <p>
+     * With the {@code after} parameter, the emails are paged with a cursor instead of a page number: the first page
+     * has an empty cursor and the {@code next} link holds the cursor of the following one. No total count is returned.
+     * <p>
+     * With {@code withTotal=false}, the emails are not counted either: the links tell whether there is a next page, and
+     * the {@value SlicePaginationUtil#HEADER_TOTAL_COUNT_ESTIMATE} header estimates the total when no criteria are given.
      *
      * @param pageable the pagination information.
      * @param criteria the criteria which the requested entities should match.
-     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and the list of emails in body.
+     * @param after the cursor of the requested page, for keyset pagination.
+     * @param withTotal whether to count the emails, when paging by page number.
+     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and the list of emails in body, or with status {@code 400 (Bad Request)} if the cursor or the sort is not valid.
      */
     @GetMapping("/emails")
-    public ResponseEntity<List<EmailDTO>> getAllEmails(EmailCriteria criteria, Pageable pageable) {
+    public ResponseEntity<List<EmailDTO>> getAllEmails(EmailCriteria criteria, Pageable pageable, @RequestParam(required = false) String after,
+        @RequestParam(defaultValue = "true") boolean withTotal) {
         log.debug("REST request to get Emails by criteria: {}", criteria);
+        if (after != null) {
+            KeysetSlice<EmailDTO> slice;
+            try {
+                slice = emailQueryService.findByCriteria(criteria, after, pageable);
+            } catch (IllegalArgumentException e) {
+                throw new BadRequestAlertException(e.getMessage(), ENTITY_NAME, "invalidcursor");
+            }
+            HttpHeaders headers = KeysetPaginationUtil.generateKeysetHttpHeaders(ServletUriComponentsBuilder.fromCurrentRequest(), slice);
+            return ResponseEntity.ok().headers(headers).body(slice.getContent());
+        }
+        if (!withTotal) {
+            Slice<EmailDTO> slice = emailQueryService.findSliceByCriteria(criteria, pageable);
+            HttpHeaders headers = SlicePaginationUtil.generateSliceHttpHeaders(ServletUriComponentsBuilder.fromCurrentRequest(), slice,
+                emailQueryService.estimateCountByCriteria(criteria));
+            return ResponseEntity.ok().headers(headers).body(slice.getContent());
+        }
         Page<EmailDTO> page = emailQueryService.findByCriteria(criteria, pageable);
         HttpHeaders headers = PaginationUtil.generatePaginationHttpHeaders(ServletUriComponentsBuilder.fromCurrentRequest(), page);
         return ResponseEntity.ok().headers(headers).body(page.getContent());
     }
 
+    /**
+     * {@code GET  /emails/stream} : stream all the emails as newline-delimited JSON, one email per line.
+     * <p>
+     * The emails are written as they are read from the database, so that all of them can be read in constant memory.
+     *
+     * @param criteria the criteria which the requested entities should match.
+     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and the emails in body.
+     */
+    @GetMapping("/emails/stream")
+    public ResponseEntity<StreamingResponseBody> streamEmails(EmailCriteria criteria) {
+        log.debug("REST request to stream Emails by criteria: {}", criteria);
+        return ResponseEntity.ok().contentType(NdjsonUtil.APPLICATION_NDJSON)
+            .body(NdjsonUtil.stream(objectMapper, EmailDTO.class, consumer -> emailQueryService.streamByCriteria(criteria, consumer)));
+    }
+
     /**
      * {@code GET  /emails/count} : count all the emails.
      *
@@ -0,0 +1,190 @@
+package com.isoft.reporting.web.rest;
+
+import com.isoft.reporting.service.EmployeeService;
+import com.isoft.reporting.service.KeysetSlice;
+import com.isoft.reporting.web.rest.errors.BadRequestAlertException;
+import com.isoft.reporting.service.dto.EmployeeDTO;
+import com.isoft.reporting.service.dto.EmployeeCriteria;
+import com.isoft.reporting.service.EmployeeQueryService;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.github.jhipster.web.util.HeaderUtil;
+import io.github.jhipster.web.util.PaginationUtil;
+import io.github.jhipster.web.util.ResponseUtil;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * REST controller for managing {@link com.isoft.reporting.domain.Employee}.
+ */
+@RestController
+@RequestMapping("/api")
+public class EmployeeResource {
+
+    private final Logger log = LoggerFactory.getLogger(EmployeeResource.class);
+
+    private static final String ENTITY_NAME = "amanReportingMsEmployee";
+
+    @Value("${jhipster.clientApp.name}")
+    private String applicationName;
+
+    private final EmployeeService employeeService;
+
+    private final EmployeeQueryService employeeQueryService;
+
+    private final ObjectMapper objectMapper;
+
+    public EmployeeResource(EmployeeService employeeService, EmployeeQueryService employeeQueryService, ObjectMapper objectMapper) {
+        this.employeeService = employeeService;
+        this.employeeQueryService = employeeQueryService;
+        this.objectMapper = objectMapper;
+    }
+
+    /**
+     * {@code POST  /employees} : Create a new employee.
+     *
+     * @param employeeDTO the employeeDTO to create.
+     * @return the {@link ResponseEntity} with status {@code 201 (Created)} and with body the new employeeDTO, or with status {@code 400 (Bad Request)} if the employee has already an ID.
+     * @throws URISyntaxException if the Location URI syntax is incorrect.
+     */
+    @PostMapping("/employees")
+    public ResponseEntity<EmployeeDTO> createEmployee(@RequestBody EmployeeDTO employeeDTO) throws URISyntaxException {
+        log.debug("REST request to save Employee : {}", employeeDTO);
+        if (employeeDTO.getId() != null) {
+            throw new BadRequestAlertException("A new employee cannot already have an ID", ENTITY_NAME, "idexists");
+        }
+        EmployeeDTO result = employeeService.save(employeeDTO);
+        return ResponseEntity.created(new URI("/api/employees/" + result.getId()))
+            .headers(HeaderUtil.createEntityCreationAlert(applicationName, true, ENTITY_NAME, result.getId().toString()))
+            .body(result);
+    }
+
+    /**
+     * {@code PUT  /employees} : Updates an existing employee.
+     *
+     * @param employeeDTO the employeeDTO to update.
+     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and with body the updated employeeDTO,
+     * or with status {@code 400 (Bad Request)} if the employeeDTO is not valid,
+     * or with status {@code 500 (Internal Server Error)} if the employeeDTO couldn't be updated.
+     * @throws URISyntaxException if the Location URI syntax is incorrect.
+     */
+    @PutMapping("/employees")
+    public ResponseEntity<EmployeeDTO> updateEmployee(@RequestBody EmployeeDTO employeeDTO) throws URISyntaxException {
+        log.debug("REST request to update Employee : {}", employeeDTO);
+        if (employeeDTO.getId() == null) {
+            throw new BadRequestAlertException("Invalid id", ENTITY_NAME, "idnull");
+        }
+        EmployeeDTO result = employeeService.save(employeeDTO);
+        return ResponseEntity.ok()
+            .headers(HeaderUtil.createEntityUpdateAlert(applicationName, true, ENTITY_NAME, employeeDTO.getId().toString()))
+            .body(result);
+    }
+
+    /**
+     * {@code GET  /employees} : get all the employees.
+     * <p>
+     * With the {@code after} parameter, the employees are paged with a cursor instead of a page number: the first page
+     * has an empty cursor and the {@code next} link holds the cursor of the following one. No total count is returned.
+     * <p>
+     * With {@code withTotal=false}, the employees are not counted either: the links tell whether there is a next page, and
+     * the {@value SlicePaginationUtil#HEADER_TOTAL_COUNT_ESTIMATE} header estimates the total when no criteria are given.
+     *
+     * @param pageable the pagination information.
+     * @param criteria the criteria which the requested entities should match.
+     * @param after the cursor of the requested page, for keyset pagination.
+     * @param withTotal whether to count the employees, when paging by page number.
+     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and the list of employees in body, or with status {@code 400 (Bad Request)} if the cursor or the sort is not valid.
+     */
+    @GetMapping("/employees")
+    public ResponseEntity<List<EmployeeDTO>> getAllEmployees(EmployeeCriteria criteria, Pageable pageable, @RequestParam(required = false) String after,
+        @RequestParam(defaultValue = "true") boolean withTotal) {
+        log.debug("REST request to get Employees by criteria: {}", criteria);
+        if (after != null) {
+            KeysetSlice<EmployeeDTO> slice;
+            try {
+                slice = employeeQueryService.findByCriteria(criteria, after, pageable);
+            } catch (IllegalArgumentException e) {
+                throw new BadRequestAlertException(e.getMessage(), ENTITY_NAME, "invalidcursor");
+            }
+            HttpHeaders headers = KeysetPaginationUtil.generateKeysetHttpHeaders(ServletUriComponentsBuilder.fromCurrentRequest(), slice);
+            return ResponseEntity.ok().headers(headers).body(slice.getContent());
+        }
+        if (!withTotal) {
+            Slice<EmployeeDTO> slice = employeeQueryService.findSliceByCriteria(criteria, pageable);
+            HttpHeaders headers = SlicePaginationUtil.generateSliceHttpHeaders(ServletUriComponentsBuilder.fromCurrentRequest(), slice,
+                employeeQueryService.estimateCountByCriteria(criteria));
+            return ResponseEntity.ok().headers(headers).body(slice.getContent());
+        }
+        Page<EmployeeDTO> page = employeeQueryService.findByCriteria(criteria, pageable);
+        HttpHeaders headers = PaginationUtil.generatePaginationHttpHeaders(ServletUriComponentsBuilder.fromCurrentRequest(), page);
+        return ResponseEntity.ok().headers(headers).body(page.getContent());
+    }
+
+    /**
+     * {@code GET  /employees/stream} : stream all the employees as newline-delimited JSON, one employee per line.
+     * <p>
+     * The employees are written as they are read from the database, so that all of them can be read in constant memory.
+     *
+     * @param criteria the criteria which the requested entities should match.
+     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and the employees in body.
+     */
+    @GetMapping("/employees/stream")
+    public ResponseEntity<StreamingResponseBody> streamEmployees(EmployeeCriteria criteria) {
+        log.debug("REST request to stream Employees by criteria: {}", criteria);
+        return ResponseEntity.ok().contentType(NdjsonUtil.APPLICATION_NDJSON)
+            .body(NdjsonUtil.stream(objectMapper, EmployeeDTO.class, consumer -> employeeQueryService.streamByCriteria(criteria, consumer)));
+    }
+
+    /**
+     * {@code GET  /employees/count} : count all the employees.
+     *
+     * @param criteria the criteria which the requested entities should match.
+     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and the count in body.
+     */
+    @GetMapping("/employees/count")
+    public ResponseEntity<Long> countEmployees(EmployeeCriteria criteria) {
+        log.debug("REST request to count Employees by criteria: {}", criteria);
+        return ResponseEntity.ok().body(employeeQueryService.countByCriteria(criteria));
+    }
+
+    /**
+     * {@code GET  /employees/:id} : get the "id" employee.
+     *
+     * @param id the id of the employeeDTO to retrieve.
+     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and with body the employeeDTO, or with status {@code 404 (Not Found)}.
+     */
+    @GetMapping("/employees/{id}")
+    public ResponseEntity<EmployeeDTO> getEmployee(@PathVariable Long id) {
+        log.debug("REST request to get Employee : {}", id);
+        Optional<EmployeeDTO> employeeDTO = employeeService.findOne(id);
+        return ResponseUtil.wrapOrNotFound(employeeDTO);
+    }
+
+    /**
+     * {@code DELETE  /employees/:id} : delete the "id" employee.
+     *
+     * @param id the id of the employeeDTO to delete.
+     * @return the {@link ResponseEntity} with status {@code 204 (NO_CONTENT)}.
+     */
+    @DeleteMapping("/employees/{id}")
+    public ResponseEntity<Void> deleteEmployee(@PathVariable Long id) {
+        log.debug("REST request to delete Employee : {}", id);
+        employeeService.delete(id);
+        return ResponseEntity.noContent().headers(HeaderUtil.createEntityDeletionAlert(applicationName, true, ENTITY_NAME, id.toString())).build();
+    }
+}
@@ -0,0 +1,164 @@
+package com.isoft.reporting.web.rest;
+
+import com.isoft.reporting.config.ApplicationProperties;
+import com.isoft.reporting.config.ApplicationProperties.Export.Csv.QuoteMode;
+import com.isoft.reporting.service.dto.EmailCriteria;
+import com.isoft.reporting.service.dto.EmployeeCriteria;
+import com.isoft.reporting.service.export.ArrowTableWriter;
+import com.isoft.reporting.service.export.CsvTableWriter;
+import com.isoft.reporting.service.export.TableWriter;
+import com.isoft.reporting.service.export.TabularExportService;
+import com.isoft.reporting.service.export.XlsxTableWriter;
+import com.isoft.reporting.web.rest.errors.BadRequestAlertException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.function.Function;
+
+/**
+ * REST controller for exporting employees and emails as tables.
+ * <p>
+ * Unlike reports, exports are not filled by JasperReports: rows are streamed from the database straight to the
+ * client, so they suit extracts of any size.
+ */
+@RestController
+@RequestMapping("/api")
+public class ExportResource {
+
+    private final Logger log = LoggerFactory.getLogger(ExportResource.class);
+
+    private static final String ENTITY_NAME = "export";
+
+    private static final MediaType TEXT_CSV = new MediaType("text", "csv", StandardCharsets.UTF_8);
+
+    private static final MediaType APPLICATION_XLSX = MediaType.parseMediaType("application/vnd.openxmlformats-officedocument.spreadsheetml.sheet");
+
+    private static final MediaType APPLICATION_ARROW_STREAM = MediaType.parseMediaType("application/vnd.apache.arrow.stream");
+
+    private final TabularExportService exportService;
+
+    private final ApplicationProperties applicationProperties;
+
+    public ExportResource(TabularExportService exportService, ApplicationProperties applicationProperties) {
+        this.exportService = exportService;
+        this.applicationProperties = applicationProperties;
+    }
+
+    /**
+     * {@code GET  /exports/employees} : export the employees as CSV, XLSX or Arrow.
+     *
+     * @param criteria the criteria which the exported employees should match.
+     * @param format the format of the export, {@code csv}, {@code xlsx} or {@code arrow}.
+     * @param delimiter the delimiter of the values, a single character or {@code tab}, the configured one if not given.
+     * @param quoteMode whether to quote all the values or only those which need it, the configured mode if not given.
+     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and with body the employees, or with status {@code 400 (Bad Request)} if the format or the delimiter is not valid.
+     */
+    @GetMapping("/exports/employees")
+    public ResponseEntity<StreamingResponseBody> exportEmployees(
+        EmployeeCriteria criteria,
+        @RequestParam(defaultValue = "csv") String format,
+        @RequestParam(required = false) String delimiter,
+        @RequestParam(required = false) QuoteMode quoteMode
+    ) {
+        log.debug("REST request to export Employees by criteria: {}, format: {}", criteria, format);
+        Function<OutputStream, TableWriter> writer = resolveWriter(format, delimiter, quoteMode, "employees");
+        return ResponseEntity.ok().headers(headers("employees", format))
+            .body(out -> {
+                try (TableWriter tableWriter = writer.apply(out)) {
+                    exportService.exportEmployees(criteria, tableWriter);
+                }
+            });
+    }
+
+    /**
+     * {@code GET  /exports/emails} : export the emails as CSV, XLSX or Arrow.
+     *
+     * @param criteria the criteria which the exported emails should match.
+     * @param format the format of the export, {@code csv}, {@code xlsx} or {@code arrow}.
+     * @param delimiter the delimiter of the values, a single character or {@code tab}, the configured one if not given.
+     * @param quoteMode whether to quote all the values or only those which need it, the configured mode if not given.
+     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and with body the emails, or with status {@code 400 (Bad Request)} if the format or the delimiter is not valid.
+     */
+    @GetMapping("/exports/emails")
+    public ResponseEntity<StreamingResponseBody> exportEmails(
+        EmailCriteria criteria,
+        @RequestParam(defaultValue = "csv") String format,
+        @RequestParam(required = false) String delimiter,
+        @RequestParam(required = false) QuoteMode quoteMode
+    ) {
+        log.debug("REST request to export Emails by criteria: {}, format: {}", criteria, format);
+        Function<OutputStream, TableWriter> writer = resolveWriter(format, delimiter, quoteMode, "emails");
+        return ResponseEntity.ok().headers(headers("emails", format))
+            .body(out -> {
+                try (TableWriter tableWriter = writer.apply(out)) {
+                    exportService.exportEmails(criteria, tableWriter);
+                }
+            });
+    }
+
+    private Function<OutputStream, TableWriter> resolveWriter(String format, String delimiter, QuoteMode quoteMode, String sheetName) {
+        switch (format) {
+            case "csv":
+                CsvOptions options = resolveOptions(delimiter, quoteMode);
+                return out -> new CsvTableWriter(out, options.delimiter, options.quoteMode);
+            case "xlsx":
+                // Rows are streamed into the workbook, so that large exports do not build it in memory.
+                return out -> new XlsxTableWriter(out, sheetName);
+            case "arrow":
+                // Arrow IPC stream, read column by column by analytics tools.
+                return ArrowTableWriter::new;
+            default:
+                throw new BadRequestAlertException("Unknown export format: " + format, ENTITY_NAME, "invalidformat");
+        }
+    }
+
+    private CsvOptions resolveOptions(String delimiter, QuoteMode quoteMode) {
+        ApplicationProperties.Export.Csv properties = applicationProperties.getExport().getCsv();
+        char delimiterChar = properties.getDelimiter();
+        if ("tab".equalsIgnoreCase(delimiter)) {
+            delimiterChar = '\t';
+        } else if (delimiter != null) {
+            if (delimiter.length() != 1 || "\"\r\n".indexOf(delimiter.charAt(0)) >= 0) {
+                throw new BadRequestAlertException("Invalid delimiter", ENTITY_NAME, "invaliddelimiter");
+            }
+            delimiterChar = delimiter.charAt(0);
+        }
+        return new CsvOptions(delimiterChar, quoteMode != null ? quoteMode : properties.getQuoteMode());
+    }
+
+    private static HttpHeaders headers(String baseName, String format) {
+        HttpHeaders headers = new HttpHeaders();
+        String extension = format;
+        if ("xlsx".equals(format)) {
+            headers.setContentType(APPLICATION_XLSX);
+        } else if ("arrow".equals(format)) {
+            headers.setContentType(APPLICATION_ARROW_STREAM);
+            extension = "arrows";
+        } else {
+            headers.setContentType(TEXT_CSV);
+        }
+        headers.setContentDisposition(ContentDisposition.builder("attachment").filename(baseName + "." + extension).build());
+        return headers;
+    }
+
+    private static final class CsvOptions {
+        private final char delimiter;
+        private final QuoteMode quoteMode;
+
+        private CsvOptions(char delimiter, QuoteMode quoteMode) {
+            this.delimiter = delimiter;
+            this.quoteMode = quoteMode;
+        }
+    }
+}
@@ -0,0 +1,40 @@
+package com.isoft.reporting.web.rest;
+
+import com.isoft.reporting.service.KeysetSlice;
+import org.springframework.http.HttpHeaders;
+import org.springframework.web.util.UriComponentsBuilder;
+
+/**
+ * Utility class for handling keyset pagination.
+ * <p>
+ * The links follow the same <a href="https://developer.github.com/v3/#pagination">GitHub API</a> format as the
+ * offset pagination links, with the cursors in the {@code after} parameter. There is no total count and no last link.
+ */
+final class KeysetPaginationUtil {
+
+    static final String AFTER_PARAMETER = "after";
+
+    private KeysetPaginationUtil() {
+    }
+
+    /**
+     * Generate the pagination headers of a keyset slice.
+     *
+     * @param uriBuilder the builder of the current request URI.
+     * @param slice the slice.
+     * @return the {@code Link} header, with the next link when there is a next slice.
+     */
+    static HttpHeaders generateKeysetHttpHeaders(UriComponentsBuilder uriBuilder, KeysetSlice<?> slice) {
+        HttpHeaders headers = new HttpHeaders();
+        StringBuilder link = new StringBuilder();
+        slice.getNextCursor().ifPresent(cursor -> link.append(prepareLink(uriBuilder, cursor, "next")).append(","));
+        link.append(prepareLink(uriBuilder, "", "first"));
+        headers.add(HttpHeaders.LINK, link.toString());
+        return headers;
+    }
+
+    private static String prepareLink(UriComponentsBuilder uriBuilder, String cursor, String relType) {
+        return "<" + uriBuilder.replaceQueryParam(AFTER_PARAMETER, cursor).replaceQueryParam("page").toUriString()
+            .replace(",", "%2C").replace(";", "%3B") + ">; rel=\"" + relType + "\"";
+    }
+}
@@ -0,0 +1,53 @@
+package com.isoft.reporting.web.rest;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import org.springframework.http.MediaType;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.function.Consumer;
+
+/**
+ * Utility class for streaming newline-delimited JSON (NDJSON): one JSON object per line, written as it is read.
+ */
+final class NdjsonUtil {
+
+    static final MediaType APPLICATION_NDJSON = MediaType.parseMediaType("application/x-ndjson");
+
+    private NdjsonUtil() {
+    }
+
+    /**
+     * Create a response body streaming values as NDJSON.
+     *
+     * @param objectMapper the mapper serializing the values.
+     * @param type the type of the values.
+     * @param source the source of the values, which passes each of them to the given consumer.
+     * @param <T> the type of the values.
+     * @return the response body.
+     */
+    static <T> StreamingResponseBody stream(ObjectMapper objectMapper, Class<T> type, Consumer<Consumer<T>> source) {
+        // The generator is flushed through its buffer, not after each value.
+        ObjectWriter writer = objectMapper.writerFor(type).without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+        return out -> {
+            try (JsonGenerator generator = objectMapper.getFactory().createGenerator(out)) {
+                generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+                generator.setRootValueSeparator(null);
+                source.accept(value -> {
+                    try {
+                        writer.writeValue(generator, value);
+                        generator.writeRaw('\n');
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+            } catch (UncheckedIOException e) {
+                throw e.getCause();
+            }
+        };
+    }
+}
@@ -0,0 +1,102 @@
+package com.isoft.reporting.web.rest;
+
+import com.isoft.reporting.service.ReportJobService;
+import com.isoft.reporting.service.dto.ReportJobDTO;
+import com.isoft.reporting.service.dto.ReportRequestDTO;
+import com.isoft.reporting.web.rest.errors.BadRequestAlertException;
+
+import io.github.jhipster.web.util.ResponseUtil;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.core.io.Resource;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.MediaTypeFactory;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.nio.file.Path;
+import java.util.Optional;
+
+/**
+ * REST controller for managing asynchronous report jobs.
+ */
+@RestController
+@RequestMapping("/api")
+public class ReportJobResource {
+
+    private final Logger log = LoggerFactory.getLogger(ReportJobResource.class);
+
+    private static final String ENTITY_NAME = "reportJob";
+
+    private final ReportJobService reportJobService;
+
+    public ReportJobResource(ReportJobService reportJobService) {
+        this.reportJobService = reportJobService;
+    }
+
+    /**
+     * {@code POST  /report-jobs} : Submit a new report job.
+     *
+     * @param request the report to generate.
+     * @return the {@link ResponseEntity} with status {@code 202 (Accepted)} and with body the submitted job, or with status {@code 400 (Bad Request)} if the request is not valid.
+     * @throws URISyntaxException if the Location URI syntax is incorrect.
+     */
+    @PostMapping("/report-jobs")
+    public ResponseEntity<ReportJobDTO> submitReportJob(@RequestBody ReportRequestDTO request) throws URISyntaxException {
+        log.debug("REST request to submit ReportJob : {}", request);
+        ReportJobDTO result;
+        try {
+            result = reportJobService.submit(request);
+        } catch (IllegalArgumentException e) {
+            throw new BadRequestAlertException(e.getMessage(), ENTITY_NAME, "invalidrequest");
+        }
+        return ResponseEntity.accepted().location(new URI("/api/report-jobs/" + result.getId())).body(result);
+    }
+
+    /**
+     * {@code GET  /report-jobs/:id} : get the status of the "id" report job.
+     *
+     * @param id the id of the job.
+     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and with body the job, or with status {@code 404 (Not Found)}.
+     */
+    @GetMapping("/report-jobs/{id}")
+    public ResponseEntity<ReportJobDTO> getReportJob(@PathVariable String id) {
+        log.debug("REST request to get ReportJob : {}", id);
+        return ResponseUtil.wrapOrNotFound(reportJobService.findOne(id));
+    }
+
+    /**
+     * {@code GET  /report-jobs/:id/output} : download the output of the "id" report job.
+     *
+     * @param id the id of the job.
+     * @param format the format of the output.
+     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and with body the report, with status {@code 409 (Conflict)} if the job is not completed,
+     * or with status {@code 404 (Not Found)} if the job does not exist or was not exported to this format.
+     */
+    @GetMapping("/report-jobs/{id}/output")
+    public ResponseEntity<Resource> getReportJobOutput(@PathVariable String id, @RequestParam(defaultValue = "pdf") String format) {
+        log.debug("REST request to get output of ReportJob : {}, format: {}", id, format);
+        Optional<ReportJobDTO> job = reportJobService.findOne(id);
+        if (!job.isPresent()) {
+            return ResponseEntity.notFound().build();
+        }
+        if (job.get().getStatus() != ReportJobDTO.Status.COMPLETED) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).build();
+        }
+        Optional<Path> output = reportJobService.getOutput(id, format);
+        if (!output.isPresent()) {
+            return ResponseEntity.notFound().build();
+        }
+        Resource resource = new FileSystemResource(output.get());
+        HttpHeaders headers = new HttpHeaders();
+        headers.setContentType(MediaTypeFactory.getMediaType(resource).orElse(MediaType.APPLICATION_OCTET_STREAM));
+        headers.setContentDisposition(ContentDisposition.builder("attachment").filename(resource.getFilename()).build());
+        return ResponseEntity.ok().headers(headers).body(resource);
+    }
+}
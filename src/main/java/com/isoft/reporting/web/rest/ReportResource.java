@@ -1,60 +1,377 @@
 package com.isoft.reporting.web.rest;
 
-import com.isoft.reporting.config.JasperRerportsSimpleConfig;
-import com.isoft.reporting.service.SimpleReportExporter;
-import com.isoft.reporting.service.SimpleReportFiller;
-import io.github.jhipster.web.util.HeaderUtil;
-import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+import com.isoft.reporting.service.FilledReport;
+import com.isoft.reporting.service.ReportEngine;
+import com.isoft.reporting.service.ReportScheduler;
+import com.isoft.reporting.service.ReportTemplateRegistry;
+import com.isoft.reporting.service.dto.EmployeeCriteria;
+import com.isoft.reporting.service.report.PdfReportFormat;
+import com.isoft.reporting.service.report.ReportFormat;
+import com.isoft.reporting.service.report.ReportFormatRegistry;
+import com.isoft.reporting.service.report.ReportOutputCache;
+import com.isoft.reporting.service.report.ReportRunCache;
+import com.isoft.reporting.web.rest.errors.BadRequestAlertException;
+import io.github.jhipster.service.filter.StringFilter;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
-import org.springframework.web.bind.annotation.GetMapping;
-import org.springframework.web.bind.annotation.RequestMapping;
-import org.springframework.web.bind.annotation.RestController;
+import org.springframework.util.FileSystemUtils;
+import org.springframework.util.StreamUtils;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.Optional;
+import java.util.function.BiConsumer;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
 
+/**
+ * REST controller for generating reports.
+ */
 @RestController
 @RequestMapping("/api")
 public class ReportResource {
 
-//    private final SimpleReportFiller simpleReportFiller;
-//
-//    private final SimpleReportExporter simpleExporter;
-//
-//    public ReportResource(SimpleReportFiller simpleReportFiller, SimpleReportExporter simpleExporter) {
-//        this.simpleReportFiller = simpleReportFiller;
-//        this.simpleExporter = simpleExporter;
-//    }
+    private final Logger log = LoggerFactory.getLogger(ReportResource.class);
 
-    //        public static void main(String[] args) {
-    @GetMapping("/generate-report")
-    public ResponseEntity<Void> generateReport() {
-        AnnotationConfigApplicationContext ctx = new AnnotationConfigApplicationContext();
-        ctx.register(JasperRerportsSimpleConfig.class);
-        ctx.refresh();
+    private static final String ENTITY_NAME = "report";
+
+    private static final MediaType APPLICATION_ZIP = MediaType.parseMediaType("application/zip");
+
+    /**
+     * Response header holding the id of the run a report was filled in, to export it again with {@code GET /report-runs/:id}.
+     */
+    public static final String HEADER_REPORT_RUN = "X-Report-Run";
+
+    /**
+     * Response header holding the number of pages of a report, returned with page ranges.
+     */
+    public static final String HEADER_PAGE_COUNT = "X-Page-Count";
+
+    private final ReportEngine reportEngine;
+
+    private final ReportFormatRegistry formatRegistry;
+
+    private final ReportTemplateRegistry templateRegistry;
+
+    private final ReportScheduler reportScheduler;
 
-        SimpleReportFiller simpleReportFiller = ctx.getBean(SimpleReportFiller.class);
-        simpleReportFiller.setReportFileName("employeeEmailReport.jrxml");
-        simpleReportFiller.compileReport();
+    private final ReportOutputCache outputCache;
 
-        simpleReportFiller.setReportFileName("employeeReport.jrxml");
-        simpleReportFiller.compileReport();
+    private final ReportRunCache runCache;
+
+    private final PdfReportFormat pdfFormat;
+
+    public ReportResource(
+        ReportEngine reportEngine,
+        ReportFormatRegistry formatRegistry,
+        ReportTemplateRegistry templateRegistry,
+        ReportScheduler reportScheduler,
+        ReportOutputCache outputCache,
+        ReportRunCache runCache,
+        PdfReportFormat pdfFormat
+    ) {
+        this.reportEngine = reportEngine;
+        this.formatRegistry = formatRegistry;
+        this.templateRegistry = templateRegistry;
+        this.reportScheduler = reportScheduler;
+        this.outputCache = outputCache;
+        this.runCache = runCache;
+        this.pdfFormat = pdfFormat;
+    }
+
+    /**
+     * {@code GET  /generate-report} : generate the example employee report.
+     *
+     * @param format the formats of the report, several formats are returned as a zip archive.
+     * @param keepRun whether to keep the filled report, to export it again with {@code GET /report-runs/:id}.
+     * @param headers the request headers, used to select the format when none is given.
+     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and with body the report, or with status {@code 429 (Too Many Requests)} if too many reports are being generated.
+     */
+    @GetMapping("/generate-report")
+    public ResponseEntity<StreamingResponseBody> generateReport(
+        @RequestParam(required = false) List<String> format,
+        @RequestParam(defaultValue = "false") boolean keepRun,
+        @RequestHeader HttpHeaders headers
+    ) {
+        List<ReportFormat> formats = resolveFormats(format, headers);
+        if (formats.isEmpty()) {
+            return ResponseEntity.status(HttpStatus.NOT_ACCEPTABLE).build();
+        }
+        StringFilter lastName = new StringFilter();
+        lastName.setEquals("Smith");
+        EmployeeCriteria criteria = new EmployeeCriteria();
+        criteria.setLastName(lastName);
 
         Map<String, Object> parameters = new HashMap<>();
         parameters.put("title", "Employee Report Example");
         parameters.put("minSalary", 15000.0);
-        parameters.put("condition", " LAST_NAME ='Smith' ORDER BY FIRST_NAME");
+        parameters.put("criteria", criteria);
+
+        return render("employeeReport", parameters, formats, keepRun);
+    }
 
-        simpleReportFiller.setParameters(parameters);
-        simpleReportFiller.fillReport();
+    /**
+     * {@code GET  /reports/:template} : generate the "template" report and stream it to the client.
+     * <p>
+     * The format is taken from the {@code format} request parameter, or negotiated from the {@code Accept} header.
+     * The other request parameters are passed to the report as parameters. Outputs are kept in the {@link ReportOutputCache},
+     * so that identical requests are not filled again until the report data changes. When the report is filled and
+     * {@code keepRun} is set, the filled report is kept and the {@value #HEADER_REPORT_RUN} response header holds the id
+     * of the run, to export it to other formats without filling it again.
+     *
+     * @param template the name of the report template.
+     * @param format the formats of the report, several formats are returned as a zip archive.
+     * @param keepRun whether to keep the filled report, to export it again with {@code GET /report-runs/:id}.
+     * @param parameters the report parameters.
+     * @param headers the request headers.
+     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and with body the report, with status {@code 400 (Bad Request)} if a format or a parameter is not valid,
+     * with status {@code 404 (Not Found)} if the template does not exist, with status {@code 406 (Not Acceptable)} if no format matches the {@code Accept} header,
+     * or with status {@code 429 (Too Many Requests)} if too many reports are being generated.
+     */
+    @GetMapping("/reports/{template}")
+    public ResponseEntity<StreamingResponseBody> getReport(
+        @PathVariable String template,
+        @RequestParam(required = false) List<String> format,
+        @RequestParam(defaultValue = "false") boolean keepRun,
+        @RequestParam Map<String, String> parameters,
+        @RequestHeader HttpHeaders headers
+    ) {
+        log.debug("REST request to get Report : {}, format: {}", template, format);
+        if (!templateRegistry.exists(template)) {
+            return ResponseEntity.notFound().build();
+        }
+        List<ReportFormat> formats = resolveFormats(format, headers);
+        if (formats.isEmpty()) {
+            return ResponseEntity.status(HttpStatus.NOT_ACCEPTABLE).build();
+        }
+        Map<String, Object> values = new HashMap<>(parameters);
+        values.remove("format");
+        values.remove("keepRun");
+        Map<String, Object> params;
+        try {
+            params = reportEngine.resolveParameters(template, values);
+        } catch (IllegalArgumentException e) {
+            throw new BadRequestAlertException(e.getMessage(), ENTITY_NAME, "invalidparameter");
+        }
 
-        SimpleReportExporter simpleExporter = ctx.getBean(SimpleReportExporter.class);
-        simpleExporter.setJasperPrint(simpleReportFiller.getJasperPrint());
+        return render(template, params, formats, keepRun);
+    }
+
+    /**
+     * {@code GET  /report-runs/:id} : export a report filled by an earlier request again, without running its queries.
+     *
+     * @param id the id of the run, from the {@value #HEADER_REPORT_RUN} header of the earlier response.
+     * @param format the formats of the report, several formats are returned as a zip archive.
+     * @param headers the request headers, used to select the format when none is given.
+     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and with body the report, with status {@code 400 (Bad Request)} if a format is not valid,
+     * with status {@code 404 (Not Found)} if the run has expired, or with status {@code 406 (Not Acceptable)} if no format matches the {@code Accept} header.
+     */
+    @GetMapping("/report-runs/{id}")
+    public ResponseEntity<StreamingResponseBody> getReportRun(
+        @PathVariable String id,
+        @RequestParam(required = false) List<String> format,
+        @RequestHeader HttpHeaders headers
+    ) {
+        log.debug("REST request to get Report run : {}, format: {}", id, format);
+        List<ReportFormat> formats = resolveFormats(format, headers);
+        if (formats.isEmpty()) {
+            return ResponseEntity.status(HttpStatus.NOT_ACCEPTABLE).build();
+        }
+        Optional<ReportRunCache.Run> run = runCache.get(id);
+        if (!run.isPresent()) {
+            return ResponseEntity.notFound().build();
+        }
+        String template = run.get().getTemplate();
+        FilledReport filledReport = run.get().getFilledReport();
+        HttpHeaders responseHeaders = new HttpHeaders();
+        if (formats.size() == 1) {
+            ReportFormat reportFormat = formats.get(0);
+            responseHeaders.setContentType(reportFormat.getMediaType());
+            responseHeaders.setContentDisposition(ContentDisposition.builder("inline").filename(reportFormat.getFileName(template)).build());
+            return ResponseEntity.ok().headers(responseHeaders).body(out -> {
+                try (FilledReport report = filledReport) {
+                    reportFormat.export(report.getJasperPrint(), out);
+                }
+            });
+        }
+        responseHeaders.setContentType(APPLICATION_ZIP);
+        responseHeaders.setContentDisposition(ContentDisposition.builder("attachment").filename(template + ".zip").build());
+        return ResponseEntity.ok().headers(responseHeaders).body(out -> zip(template, filledReport, formats, (reportFormat, file) -> { }, out));
+    }
+
+    /**
+     * {@code GET  /report-runs/:id/pages} : export a range of pages of a report filled by an earlier request to PDF.
+     * <p>
+     * A viewer can show the first pages of a large report without waiting for the whole document to be exported.
+     * The {@value #HEADER_PAGE_COUNT} response header holds the number of pages of the report.
+     *
+     * @param id the id of the run, from the {@value #HEADER_REPORT_RUN} header of the earlier response.
+     * @param from the number of the first page, from 1.
+     * @param to the number of the last page, inclusive, the last page of the report if not given or beyond it.
+     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and with body the pages, with status {@code 400 (Bad Request)} if the range is not valid,
+     * or with status {@code 404 (Not Found)} if the run has expired.
+     */
+    @GetMapping("/report-runs/{id}/pages")
+    public ResponseEntity<StreamingResponseBody> getReportRunPages(
+        @PathVariable String id,
+        @RequestParam(defaultValue = "1") int from,
+        @RequestParam(required = false) Integer to
+    ) {
+        log.debug("REST request to get pages of Report run : {}, from: {}, to: {}", id, from, to);
+        if (from < 1 || (to != null && to < from)) {
+            throw new BadRequestAlertException("Invalid page range", ENTITY_NAME, "invalidpagerange");
+        }
+        Optional<ReportRunCache.Run> run = runCache.get(id);
+        if (!run.isPresent()) {
+            return ResponseEntity.notFound().build();
+        }
+        FilledReport filledReport = run.get().getFilledReport();
+        int pageCount = filledReport.getJasperPrint().getPages().size();
+        if (from > pageCount) {
+            filledReport.close();
+            throw new BadRequestAlertException("Invalid page range, the report has " + pageCount + " pages", ENTITY_NAME, "invalidpagerange");
+        }
+        int last = to == null ? pageCount : Math.min(to, pageCount);
+        HttpHeaders headers = new HttpHeaders();
+        headers.setContentType(pdfFormat.getMediaType());
+        headers.setContentDisposition(ContentDisposition.builder("inline").filename(pdfFormat.getFileName(run.get().getTemplate())).build());
+        headers.set(HEADER_PAGE_COUNT, Integer.toString(pageCount));
+        return ResponseEntity.ok().headers(headers).body(out -> {
+            try (FilledReport report = filledReport) {
+                pdfFormat.export(report.getJasperPrint(), out, from - 1, last - 1);
+            }
+        });
+    }
+
+    private List<ReportFormat> resolveFormats(List<String> names, HttpHeaders headers) {
+        if (names == null || names.isEmpty()) {
+            return formatRegistry.negotiate(headers.getAccept()).map(Collections::singletonList).orElse(Collections.emptyList());
+        }
+        try {
+            return formatRegistry.resolve(names);
+        } catch (IllegalArgumentException e) {
+            throw new BadRequestAlertException(e.getMessage(), ENTITY_NAME, "invalidformat");
+        }
+    }
+
+    private ResponseEntity<StreamingResponseBody> render(String template, Map<String, Object> params, List<ReportFormat> formats, boolean keepRun) {
+        long dataVersion = outputCache.getVersion();
+        Map<ReportFormat, ReportOutputCache.Key> keys = new LinkedHashMap<>();
+        formats.forEach(format -> keys.put(format, ReportOutputCache.Key.of(template, params, format.getName())));
+        HttpHeaders headers = new HttpHeaders();
+        if (formats.size() == 1) {
+            ReportFormat format = formats.get(0);
+            ReportOutputCache.Key key = keys.get(format);
+            headers.setContentType(format.getMediaType());
+            headers.setContentDisposition(ContentDisposition.builder("inline").filename(format.getFileName(template)).build());
+            // A run to keep needs a fill, even if the output is already cached.
+            Optional<InputStream> cached = keepRun ? Optional.empty() : outputCache.get(key);
+            if (cached.isPresent()) {
+                return ResponseEntity.ok().headers(headers).body(out -> {
+                    try (InputStream in = cached.get()) {
+                        StreamUtils.copy(in, out);
+                    }
+                });
+            }
+            FilledReport filledReport = fill(template, params, keepRun, headers);
+            return ResponseEntity.ok().headers(headers).body(out -> {
+                // The pages of a virtualized report are released once they are written.
+                try (FilledReport report = filledReport) {
+                    ReportOutputCache.Capture capture = outputCache.capture(key, dataVersion, out);
+                    format.export(report.getJasperPrint(), capture);
+                    capture.commit();
+                }
+            });
+        }
+        headers.setContentType(APPLICATION_ZIP);
+        headers.setContentDisposition(ContentDisposition.builder("attachment").filename(template + ".zip").build());
+        Map<ReportFormat, InputStream> cached = new LinkedHashMap<>();
+        if (!keepRun) {
+            keys.forEach((format, key) -> outputCache.get(key).ifPresent(in -> cached.put(format, in)));
+        }
+        if (cached.size() == formats.size()) {
+            return ResponseEntity.ok().headers(headers).body(out -> zip(template, cached, out));
+        }
+        cached.values().forEach(ReportResource::closeQuietly);
+        FilledReport filledReport = fill(template, params, keepRun, headers);
+        return ResponseEntity.ok().headers(headers).body(out ->
+            zip(template, filledReport, formats, (format, file) -> outputCache.put(keys.get(format), dataVersion, file), out)
+        );
+    }
+
+    private FilledReport fill(String template, Map<String, Object> params, boolean keepRun, HttpHeaders headers) {
+        // Fill before the response is committed, so that failures are still reported with a proper status.
+        return reportScheduler.run(ReportScheduler.Lane.INTERACTIVE, () -> {
+            FilledReport filledReport = reportEngine.fill(template, params);
+            // Saving the run is a whole extra pass over the report, only made for the clients asking for it.
+            if (keepRun) {
+                runCache.put(template, filledReport).ifPresent(runId -> headers.set(HEADER_REPORT_RUN, runId));
+            }
+            return filledReport;
+        });
+    }
+
+    /**
+     * Export a report to several formats in parallel and stream them as a zip archive. Each format is exported to a
+     * temporary file, then copied to its entry, so that no document is held in memory.
+     */
+    private void zip(String template, FilledReport filledReport, List<ReportFormat> formats, BiConsumer<ReportFormat, Path> exported, OutputStream out)
+        throws IOException {
+        Path directory = Files.createTempDirectory("report-export-");
+        try {
+            Map<ReportFormat, Path> files = new LinkedHashMap<>();
+            formats.forEach(format -> files.put(format, directory.resolve(format.getFileName(template))));
+            try (FilledReport report = filledReport) {
+                formatRegistry.exportAll(report.getJasperPrint(), formats, format -> new BufferedOutputStream(Files.newOutputStream(files.get(format))));
+            }
+            files.forEach(exported);
+            ZipOutputStream zip = new ZipOutputStream(out);
+            for (Map.Entry<ReportFormat, Path> file : files.entrySet()) {
+                zip.putNextEntry(new ZipEntry(file.getKey().getFileName(template)));
+                Files.copy(file.getValue(), zip);
+                zip.closeEntry();
+            }
+            zip.finish();
+        } finally {
+            FileSystemUtils.deleteRecursively(directory);
+        }
+    }
+
+    private static void zip(String template, Map<ReportFormat, InputStream> documents, OutputStream out) throws IOException {
+        ZipOutputStream zip = new ZipOutputStream(out);
+        try {
+            for (Map.Entry<ReportFormat, InputStream> document : documents.entrySet()) {
+                zip.putNextEntry(new ZipEntry(document.getKey().getFileName(template)));
+                StreamUtils.copy(document.getValue(), zip);
+                zip.closeEntry();
+            }
+            zip.finish();
+        } finally {
+            documents.values().forEach(ReportResource::closeQuietly);
+        }
+    }
 
-        simpleExporter.exportToPdf("employeeReport.pdf", "baeldung");
-        simpleExporter.exportToXlsx("employeeReport.xlsx", "Employee Data");
-        simpleExporter.exportToCsv("employeeReport.csv");
-        simpleExporter.exportToHtml("employeeReport.html");
-        return ResponseEntity.noContent().headers(HeaderUtil.createEntityCreationAlert("appName", true, "entityNsme", "id")).build();
+    private static void closeQuietly(InputStream in) {
+        try {
+            in.close();
+        } catch (IOException e) {
+            // Nothing left to read from it.
+        }
     }
 }
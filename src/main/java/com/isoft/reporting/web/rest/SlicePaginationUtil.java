@@ -0,0 +1,53 @@
+package com.isoft.reporting.web.rest;
+
+import org.springframework.data.domain.Slice;
+import org.springframework.http.HttpHeaders;
+import org.springframework.web.util.UriComponentsBuilder;
+
+import java.util.OptionalLong;
+
+/**
+ * Utility class for handling pagination without a total count.
+ * <p>
+ * The links follow the same <a href="https://developer.github.com/v3/#pagination">GitHub API</a> format as the
+ * links of {@link io.github.jhipster.web.util.PaginationUtil}, without the last link, and the total count is replaced
+ * by an estimate when there is one.
+ */
+final class SlicePaginationUtil {
+
+    static final String HEADER_TOTAL_COUNT_ESTIMATE = "X-Total-Count-Estimate";
+
+    private SlicePaginationUtil() {
+    }
+
+    /**
+     * Generate the pagination headers of a slice.
+     *
+     * @param uriBuilder the builder of the current request URI.
+     * @param slice the slice.
+     * @param estimatedTotal the estimated number of elements, if any.
+     * @return the {@code Link} header, and the {@value #HEADER_TOTAL_COUNT_ESTIMATE} header when there is an estimate.
+     */
+    static HttpHeaders generateSliceHttpHeaders(UriComponentsBuilder uriBuilder, Slice<?> slice, OptionalLong estimatedTotal) {
+        HttpHeaders headers = new HttpHeaders();
+        estimatedTotal.ifPresent(total -> headers.add(HEADER_TOTAL_COUNT_ESTIMATE, Long.toString(total)));
+        int pageNumber = slice.getNumber();
+        int pageSize = slice.getSize();
+        StringBuilder link = new StringBuilder();
+        if (slice.hasNext()) {
+            link.append(prepareLink(uriBuilder, pageNumber + 1, pageSize, "next")).append(",");
+        }
+        if (slice.hasPrevious()) {
+            link.append(prepareLink(uriBuilder, pageNumber - 1, pageSize, "prev")).append(",");
+        }
+        link.append(prepareLink(uriBuilder, 0, pageSize, "first"));
+        headers.add(HttpHeaders.LINK, link.toString());
+        return headers;
+    }
+
+    private static String prepareLink(UriComponentsBuilder uriBuilder, int pageNumber, int pageSize, String relType) {
+        return "<" + uriBuilder.replaceQueryParam("page", Integer.toString(pageNumber))
+            .replaceQueryParam("size", Integer.toString(pageSize)).toUriString()
+            .replace(",", "%2C").replace(";", "%3B") + ">; rel=\"" + relType + "\"";
+    }
+}
@@ -0,0 +1,149 @@
+package com.isoft.reporting.service;
+
+import com.isoft.reporting.ReportingApp;
+import com.isoft.reporting.config.ApplicationProperties;
+import com.isoft.reporting.config.SecurityBeanOverrideConfiguration;
+import com.isoft.reporting.domain.Email;
+import com.isoft.reporting.domain.Employee;
+import com.isoft.reporting.repository.EmailRepository;
+import com.isoft.reporting.repository.EmployeeRepository;
+
+import net.sf.jasperreports.engine.JRPrintElement;
+import net.sf.jasperreports.engine.JRPrintFrame;
+import net.sf.jasperreports.engine.JRPrintPage;
+import net.sf.jasperreports.engine.JRPrintText;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Integration tests for {@link ReportEngine}.
+ */
+@SpringBootTest(classes = { SecurityBeanOverrideConfiguration.class, ReportingApp.class })
+public class ReportEngineIT {
+
+    @Autowired
+    private ReportEngine reportEngine;
+
+    @Autowired
+    private EmployeeRepository employeeRepository;
+
+    @Autowired
+    private EmailRepository emailRepository;
+
+    @Autowired
+    private ApplicationProperties applicationProperties;
+
+    @AfterEach
+    public void cleanUp() {
+        emailRepository.deleteAll();
+        employeeRepository.deleteAll();
+    }
+
+    @Test
+    public void fillEmployeeReportWithPrefetchedEmails() {
+        Employee alice = employeeRepository.save(new Employee().firstName("Alice").lastName("Smith").salary(20000.0));
+        Employee bob = employeeRepository.save(new Employee().firstName("Bob").lastName("Jones").salary(30000.0));
+        emailRepository.save(new Email().address("alice@example.com").employee(alice));
+        emailRepository.save(new Email().address("alice@work.example.com").employee(alice));
+        emailRepository.save(new Email().address("bob@example.com").employee(bob));
+
+        List<String> texts = fillTexts("employeeReport", Collections.singletonMap("minSalary", 0.0));
+        assertThat(texts).containsSubsequence("Alice", "alice@example.com", "alice@work.example.com", "Bob", "bob@example.com");
+        assertThat(texts.subList(texts.indexOf("Alice"), texts.indexOf("Bob"))).doesNotContain("bob@example.com");
+    }
+
+    @Test
+    public void fillEmployeeReportWithBoundCriteria() {
+        employeeRepository.save(new Employee().firstName("Alice").lastName("Smith").salary(20000.0));
+        employeeRepository.save(new Employee().firstName("Bob").lastName("Jones").salary(30000.0));
+        employeeRepository.save(new Employee().firstName("Carol").lastName("Smith").salary(40000.0));
+
+        Map<String, Object> values = new HashMap<>();
+        values.put("lastName.equals", "Smith");
+        values.put("firstName.contains", "li");
+        values.put("minSalary", "1000");
+        List<String> texts = fillTexts("employeeReport", reportEngine.resolveParameters("employeeReport", values));
+        assertThat(texts).contains("Alice").doesNotContain("Bob", "Carol");
+    }
+
+    @Test
+    public void fillEmployeeReportWithInjectedSql() {
+        employeeRepository.save(new Employee().firstName("Alice").lastName("Smith").salary(20000.0));
+
+        List<String> texts = fillTexts(
+            "employeeReport",
+            reportEngine.resolveParameters("employeeReport", Collections.singletonMap("lastName.equals", "x' OR '1' = '1"))
+        );
+        assertThat(texts).doesNotContain("Alice");
+    }
+
+    @Test
+    public void fillEmployeeReportAboveRowThreshold() {
+        employeeRepository.save(new Employee().firstName("Alice").lastName("Smith").salary(20000.0));
+        employeeRepository.save(new Employee().firstName("Bob").lastName("Jones").salary(30000.0));
+        employeeRepository.save(new Employee().firstName("Carol").lastName("Smith").salary(40000.0));
+
+        ApplicationProperties.Report.Virtualizer virtualizer = applicationProperties.getReport().getVirtualizer();
+        long rowThreshold = virtualizer.getRowThreshold();
+        virtualizer.setRowThreshold(2);
+        try {
+            Map<String, Object> params = reportEngine.resolveParameters("employeeReport", Collections.singletonMap("minSalary", "0"));
+            try (FilledReport filledReport = reportEngine.fill("employeeReport", params)) {
+                assertThat(filledReport.isVirtualized()).isTrue();
+            }
+            params = reportEngine.resolveParameters("employeeReport", Collections.singletonMap("lastName.equals", "Jones"));
+            try (FilledReport filledReport = reportEngine.fill("employeeReport", params)) {
+                assertThat(filledReport.isVirtualized()).isFalse();
+            }
+        } finally {
+            virtualizer.setRowThreshold(rowThreshold);
+        }
+    }
+
+    @Test
+    public void fillEmployeeListReportFromCriteria() {
+        employeeRepository.save(new Employee().firstName("Alice").lastName("Smith").salary(20000.0));
+        employeeRepository.save(new Employee().firstName("Bob").lastName("Jones").salary(30000.0));
+
+        Map<String, Object> params = reportEngine.resolveParameters("employeeListReport", Collections.singletonMap("salary.greaterThan", "25000"));
+        List<String> texts = fillTexts("employeeListReport", params);
+        assertThat(texts).contains("Bob").doesNotContain("Alice");
+    }
+
+    @Test
+    public void resolveInvalidCriteria() {
+        assertThatThrownBy(() -> reportEngine.resolveParameters("employeeListReport", Collections.singletonMap("salary.greaterThan", "abc")))
+            .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    private List<String> fillTexts(String templateId, Map<String, Object> params) {
+        List<String> texts = new ArrayList<>();
+        try (FilledReport filledReport = reportEngine.fill(templateId, params)) {
+            for (JRPrintPage page : filledReport.getJasperPrint().getPages()) {
+                collectTexts(page.getElements(), texts);
+            }
+        }
+        return texts;
+    }
+
+    private static void collectTexts(List<JRPrintElement> elements, List<String> texts) {
+        for (JRPrintElement element : elements) {
+            if (element instanceof JRPrintText) {
+                texts.add(((JRPrintText) element).getFullText());
+            } else if (element instanceof JRPrintFrame) {
+                collectTexts(((JRPrintFrame) element).getElements(), texts);
+            }
+        }
+    }
+}
@@ -0,0 +1,96 @@
+package com.isoft.reporting.service;
+
+import com.isoft.reporting.config.ApplicationProperties;
+import com.isoft.reporting.service.ReportScheduler.Lane;
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+public class ReportSchedulerTest {
+
+    private ApplicationProperties applicationProperties;
+
+    private HikariDataSource dataSource;
+
+    private SimpleMeterRegistry meterRegistry;
+
+    private ReportScheduler reportScheduler;
+
+    @BeforeEach
+    public void setUp() {
+        applicationProperties = new ApplicationProperties();
+        applicationProperties.getReport().getScheduler().getBulk().setConcurrency(1);
+        applicationProperties.getReport().getScheduler().getBulk().setQueueCapacity(1);
+        applicationProperties.getReport().getScheduler().setRetryAfterSeconds(7);
+        dataSource = new HikariDataSource();
+        dataSource.setMaximumPoolSize(2);
+        meterRegistry = new SimpleMeterRegistry();
+        reportScheduler = new ReportScheduler(applicationProperties, meterRegistry, dataSource);
+    }
+
+    @AfterEach
+    public void tearDown() {
+        reportScheduler.shutdown();
+        dataSource.close();
+    }
+
+    @Test
+    public void rejectWhenQueueIsFull() throws Exception {
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        CompletableFuture<String> running = reportScheduler.submit(Lane.BULK, () -> {
+            started.countDown();
+            await(release);
+            return "running";
+        });
+        assertThat(started.await(10, TimeUnit.SECONDS)).isTrue();
+        CompletableFuture<String> queued = reportScheduler.submit(Lane.BULK, () -> "queued");
+
+        assertThat(meterRegistry.get("report.scheduler.queue.depth").tag("lane", "bulk").gauge().value()).isEqualTo(1);
+        assertThatThrownBy(() -> reportScheduler.submit(Lane.BULK, () -> "rejected"))
+            .isInstanceOfSatisfying(ReportRejectedException.class, e -> assertThat(e.getRetryAfterSeconds()).isEqualTo(7));
+        assertThat(meterRegistry.get("report.scheduler.rejected").tag("lane", "bulk").counter().count()).isEqualTo(1);
+        // The interactive lane is not held up by bulk fills.
+        assertThat(reportScheduler.run(Lane.INTERACTIVE, () -> "interactive")).isEqualTo("interactive");
+
+        release.countDown();
+        assertThat(running.get(10, TimeUnit.SECONDS)).isEqualTo("running");
+        assertThat(queued.get(10, TimeUnit.SECONDS)).isEqualTo("queued");
+        assertThat(meterRegistry.get("report.scheduler.wait").tag("lane", "bulk").timer().count()).isEqualTo(2);
+    }
+
+    @Test
+    public void runRethrowsFillFailure() {
+        assertThatThrownBy(() -> reportScheduler.run(Lane.INTERACTIVE, () -> {
+            throw new ReportGenerationException("test fill failure");
+        })).isInstanceOf(ReportGenerationException.class).hasMessage("test fill failure");
+    }
+
+    @Test
+    public void runOnVirtualThreadsWhenSupported() {
+        reportScheduler.shutdown();
+        applicationProperties.getReport().getScheduler().setThreads(ApplicationProperties.Report.Scheduler.Threads.VIRTUAL);
+        reportScheduler = new ReportScheduler(applicationProperties, new SimpleMeterRegistry(), dataSource);
+
+        // Falls back to platform threads on a JVM without virtual threads.
+        assertThat(reportScheduler.run(Lane.BULK, () -> Thread.currentThread().getName())).startsWith("report-bulk-");
+        assertThat(reportScheduler.run(Lane.INTERACTIVE, () -> "interactive")).isEqualTo("interactive");
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(10, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,34 @@
+package com.isoft.reporting.service;
+
+import com.isoft.reporting.config.ApplicationProperties;
+import net.sf.jasperreports.engine.JasperReport;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class ReportTemplateRegistryTest {
+
+    private ReportTemplateRegistry templateRegistry;
+
+    @BeforeEach
+    public void setUp() {
+        templateRegistry = new ReportTemplateRegistry(new ApplicationProperties());
+    }
+
+    @Test
+    public void getReportWithSubreport() {
+        JasperReport report = templateRegistry.getReport("employeeReport");
+
+        assertThat(report).isNotNull();
+        assertThat(templateRegistry.getReport("employeeReport")).isSameAs(report);
+    }
+
+    @Test
+    public void getReportReferencingItself() {
+        JasperReport report = templateRegistry.getReport("cyclicReport");
+
+        assertThat(report.getName()).isEqualTo("cyclicReport");
+        assertThat(templateRegistry.getReport("cyclicReport")).isSameAs(report);
+    }
+}
@@ -0,0 +1,105 @@
+package com.isoft.reporting.service.export;
+
+import org.apache.arrow.memory.BufferAllocator;
+import org.apache.arrow.memory.RootAllocator;
+import org.apache.arrow.vector.BigIntVector;
+import org.apache.arrow.vector.FieldVector;
+import org.apache.arrow.vector.Float8Vector;
+import org.apache.arrow.vector.ValueVector;
+import org.apache.arrow.vector.VarCharVector;
+import org.apache.arrow.vector.VectorSchemaRoot;
+import org.apache.arrow.vector.dictionary.Dictionary;
+import org.apache.arrow.vector.dictionary.DictionaryEncoder;
+import org.apache.arrow.vector.ipc.ArrowStreamReader;
+import org.apache.arrow.vector.types.pojo.Field;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class ArrowTableWriterTest {
+
+    @Test
+    public void writeStream() throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (ArrowTableWriter writer = new ArrowTableWriter(out, 2)) {
+            writer.writeHeader(Arrays.asList(Column.of("id", Long.class), Column.categorical("name"), Column.of("salary", Double.class)));
+            writer.writeRow(new Object[] { 1L, "Smith", 1500.5 });
+            writer.writeRow(new Object[] { 2L, "Smith", null });
+            writer.writeRow(new Object[] { 3L, "Doe", 10.0 });
+            writer.finish();
+        }
+
+        try (BufferAllocator allocator = new RootAllocator();
+             ArrowStreamReader reader = new ArrowStreamReader(new ByteArrayInputStream(out.toByteArray()), allocator)) {
+            VectorSchemaRoot root = reader.getVectorSchemaRoot();
+            assertThat(root.getSchema().getFields()).extracting(Field::getName).containsExactly("id", "name", "salary");
+
+            assertThat(reader.loadNextBatch()).isTrue();
+            assertThat(root.getRowCount()).isEqualTo(2);
+            assertThat(((BigIntVector) root.getVector("id")).get(1)).isEqualTo(2L);
+            assertThat(decode(reader, root.getVector("name"))).containsExactly("Smith", "Smith");
+            assertThat(((Float8Vector) root.getVector("salary")).get(0)).isEqualTo(1500.5);
+            assertThat(root.getVector("salary").isNull(1)).isTrue();
+
+            assertThat(reader.loadNextBatch()).isTrue();
+            assertThat(root.getRowCount()).isEqualTo(1);
+            assertThat(((BigIntVector) root.getVector("id")).get(0)).isEqualTo(3L);
+            // The dictionary of the second batch replaces the one of the first.
+            assertThat(decode(reader, root.getVector("name"))).containsExactly("Doe");
+            assertThat(dictionary(reader, root.getVector("name")).getVector().getValueCount()).isEqualTo(1);
+
+            assertThat(reader.loadNextBatch()).isFalse();
+        }
+    }
+
+    @Test
+    public void writeEmptyStream() throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (ArrowTableWriter writer = new ArrowTableWriter(out)) {
+            writer.writeHeader(Arrays.asList(Column.of("address", String.class)));
+            writer.finish();
+        }
+
+        try (BufferAllocator allocator = new RootAllocator();
+             ArrowStreamReader reader = new ArrowStreamReader(new ByteArrayInputStream(out.toByteArray()), allocator)) {
+            assertThat(reader.getVectorSchemaRoot().getVector("address")).isInstanceOf(VarCharVector.class);
+            assertThat(reader.loadNextBatch()).isFalse();
+        }
+    }
+
+    @Test
+    public void leaveUnfinishedStreamIncomplete() throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (ArrowTableWriter writer = new ArrowTableWriter(out, 2)) {
+            writer.writeHeader(Arrays.asList(Column.of("id", Long.class)));
+            writer.writeRow(new Object[] { 1L });
+        }
+
+        // What was written so far is sent, but not the end of stream marker.
+        byte[] stream = out.toByteArray();
+        assertThat(stream.length).isGreaterThan(8);
+        assertThat(Arrays.copyOfRange(stream, stream.length - 8, stream.length))
+            .isNotEqualTo(new byte[] { -1, -1, -1, -1, 0, 0, 0, 0 });
+    }
+
+    private static Dictionary dictionary(ArrowStreamReader reader, FieldVector indices) throws IOException {
+        return reader.getDictionaryVectors().get(indices.getField().getDictionary().getId());
+    }
+
+    private static List<String> decode(ArrowStreamReader reader, FieldVector indices) throws IOException {
+        List<String> values = new ArrayList<>();
+        try (ValueVector decoded = DictionaryEncoder.decode(indices, dictionary(reader, indices))) {
+            for (int i = 0; i < decoded.getValueCount(); i++) {
+                values.add(decoded.getObject(i).toString());
+            }
+        }
+        return values;
+    }
+}
@@ -0,0 +1,47 @@
+package com.isoft.reporting.service.export;
+
+import com.isoft.reporting.config.ApplicationProperties.Export.Csv.QuoteMode;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+public class CsvTableWriterTest {
+
+    @Test
+    public void quoteOnlyWhenNeeded() throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        CsvTableWriter writer = new CsvTableWriter(out, ',', QuoteMode.MINIMAL);
+
+        writer.writeHeader(Arrays.asList(Column.of("id", Long.class), Column.of("name", String.class)));
+        writer.writeRow(new Object[] { 1L, "Smith, John" });
+        writer.writeRow(new Object[] { 2L, "say \"hi\"" });
+        writer.writeRow(new Object[] { 3L, null });
+        writer.finish();
+
+        assertThat(out.toString(StandardCharsets.UTF_8.name()))
+            .isEqualTo("id,name\r\n1,\"Smith, John\"\r\n2,\"say \"\"hi\"\"\"\r\n3,\r\n");
+    }
+
+    @Test
+    public void quoteAllWithOtherDelimiter() throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        CsvTableWriter writer = new CsvTableWriter(out, ';', QuoteMode.ALL);
+
+        writer.writeRow(new Object[] { 1L, "Zoë", 1500.5 });
+        writer.finish();
+
+        assertThat(out.toString(StandardCharsets.UTF_8.name())).isEqualTo("\"1\";\"Zoë\";\"1500.5\"\r\n");
+    }
+
+    @Test
+    public void rejectQuoteAsDelimiter() {
+        assertThatThrownBy(() -> new CsvTableWriter(new ByteArrayOutputStream(), '"', QuoteMode.MINIMAL))
+            .isInstanceOf(IllegalArgumentException.class);
+    }
+}
@@ -0,0 +1,77 @@
+package com.isoft.reporting.service.export;
+
+import org.junit.jupiter.api.Test;
+import org.w3c.dom.Document;
+
+import javax.xml.parsers.DocumentBuilderFactory;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class XlsxTableWriterTest {
+
+    @Test
+    public void writeWorkbook() throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        XlsxTableWriter writer = new XlsxTableWriter(out, "employees");
+
+        writer.writeHeader(Arrays.asList(Column.of("id", Long.class), Column.of("name", String.class), Column.of("salary", Double.class)));
+        writer.writeRow(new Object[] { 1L, "Smith & <Sons>", 1500.5 });
+        writer.writeRow(new Object[] { 2L, null, Double.NaN });
+        writer.finish();
+
+        Map<String, Document> parts = read(out.toByteArray());
+        assertThat(parts).containsKeys("[Content_Types].xml", "_rels/.rels", "xl/workbook.xml", "xl/_rels/workbook.xml.rels", "xl/styles.xml", "xl/worksheets/sheet1.xml");
+        Document sheet = parts.get("xl/worksheets/sheet1.xml");
+        assertThat(sheet.getElementsByTagName("row").getLength()).isEqualTo(3);
+        assertThat(sheet.getElementsByTagName("t").item(3).getTextContent()).isEqualTo("Smith & <Sons>");
+        assertThat(sheet.getElementsByTagName("c").item(5).getTextContent()).isEqualTo("1500.5");
+        assertThat(sheet.getElementsByTagName("c").item(7).getTextContent()).isEqualTo("NaN");
+    }
+
+    @Test
+    public void continueOnNewSheets() throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        XlsxTableWriter writer = new XlsxTableWriter(out, "employees", 3);
+
+        writer.writeHeader(Arrays.asList(Column.of("id", Long.class)));
+        for (long i = 1; i <= 5; i++) {
+            writer.writeRow(new Object[] { i });
+        }
+        writer.finish();
+
+        Map<String, Document> parts = read(out.toByteArray());
+        assertThat(parts).containsKeys("xl/worksheets/sheet1.xml", "xl/worksheets/sheet2.xml", "xl/worksheets/sheet3.xml");
+        // Each sheet starts with the header.
+        assertThat(parts.get("xl/worksheets/sheet2.xml").getElementsByTagName("c").item(0).getTextContent()).isEqualTo("id");
+        assertThat(parts.get("xl/worksheets/sheet3.xml").getElementsByTagName("row").getLength()).isEqualTo(2);
+        assertThat(parts.get("xl/workbook.xml").getElementsByTagName("sheet").item(1).getAttributes().getNamedItem("name").getNodeValue())
+            .isEqualTo("employees (2)");
+    }
+
+    private static Map<String, Document> read(byte[] workbook) throws Exception {
+        Map<String, Document> parts = new LinkedHashMap<>();
+        try (ZipInputStream zip = new ZipInputStream(new ByteArrayInputStream(workbook))) {
+            for (ZipEntry entry = zip.getNextEntry(); entry != null; entry = zip.getNextEntry()) {
+                parts.put(entry.getName(), parse(zip));
+            }
+        }
+        return parts;
+    }
+
+    private static Document parse(ZipInputStream zip) throws Exception {
+        ByteArrayOutputStream part = new ByteArrayOutputStream();
+        byte[] buffer = new byte[4096];
+        for (int read = zip.read(buffer); read > 0; read = zip.read(buffer)) {
+            part.write(buffer, 0, read);
+        }
+        return DocumentBuilderFactory.newInstance().newDocumentBuilder().parse(new ByteArrayInputStream(part.toByteArray()));
+    }
+}
@@ -0,0 +1,71 @@
+package com.isoft.reporting.service.report;
+
+import com.isoft.reporting.service.KeysetSlice;
+import com.isoft.reporting.service.dto.EmployeeDTO;
+import net.sf.jasperreports.engine.JRException;
+import net.sf.jasperreports.engine.design.JRDesignField;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class PagedDataSourceTest {
+
+    private static final List<EmployeeDTO> ROWS = Arrays.asList(employee("a"), employee("b"), employee("c"), employee("d"), employee("e"));
+
+    private final List<String> requestedCursors = new ArrayList<>();
+
+    @Test
+    public void readAllPages() throws JRException {
+        PagedDataSource<EmployeeDTO> dataSource = new PagedDataSource<>(this::loadSlice, 2, Sort.unsorted());
+
+        assertThat(readAll(dataSource)).containsExactly("a", "b", "c", "d", "e");
+        assertThat(requestedCursors).containsExactly(null, "2", "4");
+    }
+
+    @Test
+    public void rewind() throws JRException {
+        PagedDataSource<EmployeeDTO> dataSource = new PagedDataSource<>(this::loadSlice, 2, Sort.unsorted());
+        readAll(dataSource);
+
+        dataSource.moveFirst();
+
+        assertThat(readAll(dataSource)).containsExactly("a", "b", "c", "d", "e");
+    }
+
+    @Test
+    public void emptyDataSource() {
+        PagedDataSource<EmployeeDTO> dataSource = new PagedDataSource<>((after, page) -> new KeysetSlice<>(new ArrayList<>(), null), 2, Sort.unsorted());
+
+        assertThat(dataSource.next()).isFalse();
+    }
+
+    private KeysetSlice<EmployeeDTO> loadSlice(String after, Pageable page) {
+        requestedCursors.add(after);
+        int from = after == null ? 0 : Integer.parseInt(after);
+        int to = Math.min(from + page.getPageSize(), ROWS.size());
+        return new KeysetSlice<>(ROWS.subList(from, to), to < ROWS.size() ? Integer.toString(to) : null);
+    }
+
+    private static List<String> readAll(PagedDataSource<EmployeeDTO> dataSource) throws JRException {
+        JRDesignField field = new JRDesignField();
+        field.setName("firstName");
+        field.setValueClass(String.class);
+        List<String> rows = new ArrayList<>();
+        while (dataSource.next()) {
+            rows.add((String) dataSource.getFieldValue(field));
+        }
+        return rows;
+    }
+
+    private static EmployeeDTO employee(String firstName) {
+        EmployeeDTO employee = new EmployeeDTO();
+        employee.setFirstName(firstName);
+        return employee;
+    }
+}
@@ -0,0 +1,103 @@
+package com.isoft.reporting.service.report;
+
+import net.sf.jasperreports.engine.JRDataSource;
+import net.sf.jasperreports.engine.JRException;
+import net.sf.jasperreports.engine.JRField;
+import net.sf.jasperreports.engine.data.JRMapCollectionDataSource;
+import net.sf.jasperreports.engine.design.JRDesignField;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class PrefetchingDataSourceTest {
+
+    private static final String CHILD_QUERY = "SELECT EMPLOYEE_ID, ADDRESS FROM EMAIL WHERE EMPLOYEE_ID IN ({keys}) ORDER BY ID";
+
+    private Connection connection;
+
+    @BeforeEach
+    public void setUp() throws SQLException {
+        connection = DriverManager.getConnection("jdbc:h2:mem:prefetching");
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("CREATE TABLE EMAIL (ID BIGINT PRIMARY KEY, ADDRESS VARCHAR(255), EMPLOYEE_ID BIGINT)");
+            statement.execute("INSERT INTO EMAIL VALUES (1, 'a1@example.com', 1), (2, 'a2@example.com', 1), (3, 'c@example.com', 3)");
+        }
+    }
+
+    @AfterEach
+    public void tearDown() throws SQLException {
+        connection.close();
+    }
+
+    @Test
+    public void prefetchChildRowsAcrossPages() throws JRException {
+        PrefetchingDataSource dataSource = new PrefetchingDataSource(
+            employees(1, 2, 3),
+            new JRField[] { field("ID", Integer.class), field("NAME", String.class), field("EMAILS", JRDataSource.class) },
+            "ID",
+            "EMAILS",
+            CHILD_QUERY,
+            2,
+            connection
+        );
+
+        List<String> rows = new ArrayList<>();
+        while (dataSource.next()) {
+            rows.add(dataSource.getFieldValue(field("NAME", String.class)) + "=" + addresses((JRDataSource) dataSource.getFieldValue(field("EMAILS", JRDataSource.class))));
+        }
+
+        assertThat(rows).containsExactly("employee1=[a1@example.com, a2@example.com]", "employee2=[]", "employee3=[c@example.com]");
+    }
+
+    @Test
+    public void emptyDataSource() throws JRException {
+        PrefetchingDataSource dataSource = new PrefetchingDataSource(
+            employees(),
+            new JRField[] { field("ID", Integer.class), field("EMAILS", JRDataSource.class) },
+            "ID",
+            "EMAILS",
+            CHILD_QUERY,
+            2,
+            connection
+        );
+
+        assertThat(dataSource.next()).isFalse();
+    }
+
+    private static JRDataSource employees(int... ids) {
+        List<Map<String, ?>> rows = new ArrayList<>();
+        for (int id : ids) {
+            Map<String, Object> row = new HashMap<>();
+            row.put("ID", id);
+            row.put("NAME", "employee" + id);
+            rows.add(row);
+        }
+        return new JRMapCollectionDataSource(rows);
+    }
+
+    private static List<String> addresses(JRDataSource emails) throws JRException {
+        List<String> addresses = new ArrayList<>();
+        while (emails.next()) {
+            addresses.add((String) emails.getFieldValue(field("ADDRESS", String.class)));
+        }
+        return addresses;
+    }
+
+    private static JRField field(String name, Class<?> valueClass) {
+        JRDesignField field = new JRDesignField();
+        field.setName(name);
+        field.setValueClass(valueClass);
+        return field;
+    }
+}
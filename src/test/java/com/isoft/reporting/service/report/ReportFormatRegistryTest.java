@@ -0,0 +1,73 @@
+package com.isoft.reporting.service.report;
+
+import com.isoft.reporting.config.ApplicationProperties;
+import com.isoft.reporting.service.SimpleReportExporter;
+import net.sf.jasperreports.engine.JasperPrint;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.MediaType;
+
+import java.io.ByteArrayOutputStream;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+public class ReportFormatRegistryTest {
+
+    private ReportFormatRegistry formatRegistry;
+
+    @BeforeEach
+    public void setUp() {
+        SimpleReportExporter reportExporter = new SimpleReportExporter();
+        formatRegistry = new ReportFormatRegistry(Arrays.asList(
+            new PdfReportFormat(reportExporter),
+            new XlsxReportFormat(reportExporter),
+            new CsvReportFormat(reportExporter),
+            new HtmlReportFormat(reportExporter)
+        ), new ApplicationProperties());
+    }
+
+    @AfterEach
+    public void tearDown() {
+        formatRegistry.shutdown();
+    }
+
+    @Test
+    public void resolveFormats() {
+        assertThat(formatRegistry.resolve(Collections.emptyList())).extracting(ReportFormat::getName).containsExactly("pdf");
+        assertThat(formatRegistry.resolve(Arrays.asList("CSV", "html", "csv"))).extracting(ReportFormat::getName).containsExactly("csv", "html");
+        assertThatThrownBy(() -> formatRegistry.resolve(Collections.singletonList("doc"))).isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    public void negotiateFormat() {
+        assertThat(formatRegistry.negotiate(Collections.emptyList())).map(ReportFormat::getName).contains("pdf");
+        assertThat(formatRegistry.negotiate(MediaType.parseMediaTypes("*/*"))).map(ReportFormat::getName).contains("pdf");
+        assertThat(formatRegistry.negotiate(MediaType.parseMediaTypes("text/csv"))).map(ReportFormat::getName).contains("csv");
+        assertThat(formatRegistry.negotiate(MediaType.parseMediaTypes("text/html;q=0.5, text/csv"))).map(ReportFormat::getName).contains("csv");
+        assertThat(formatRegistry.negotiate(MediaType.parseMediaTypes("application/json"))).isEmpty();
+    }
+
+    @Test
+    public void exportAllOnExportThreads() {
+        JasperPrint jasperPrint = new JasperPrint();
+        jasperPrint.setName("emptyReport");
+        Map<String, String> threads = new ConcurrentHashMap<>();
+        Map<String, ByteArrayOutputStream> documents = new ConcurrentHashMap<>();
+
+        formatRegistry.exportAll(jasperPrint, formatRegistry.resolve(Arrays.asList("csv", "html")), format -> {
+            threads.put(format.getName(), Thread.currentThread().getName());
+            return documents.computeIfAbsent(format.getName(), name -> new ByteArrayOutputStream());
+        });
+
+        assertThat(documents).containsOnlyKeys("csv", "html");
+        assertThat(documents.get("html").size()).isPositive();
+        assertThat(threads.get("csv")).isEqualTo(Thread.currentThread().getName());
+        assertThat(threads.get("html")).startsWith("report-export-");
+    }
+}
@@ -0,0 +1,137 @@
+package com.isoft.reporting.service.report;
+
+import com.isoft.reporting.config.ApplicationProperties;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.util.StreamUtils;
+import org.springframework.util.unit.DataSize;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.Map;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class ReportOutputCacheTest {
+
+    @TempDir
+    public Path directory;
+
+    private ApplicationProperties applicationProperties;
+
+    private SimpleMeterRegistry meterRegistry;
+
+    private ReportOutputCache outputCache;
+
+    @BeforeEach
+    public void setUp() {
+        applicationProperties = new ApplicationProperties();
+        ApplicationProperties.Report.OutputCache properties = applicationProperties.getReport().getOutputCache();
+        properties.setMaxMemory(DataSize.ofBytes(10));
+        properties.setMaxDisk(DataSize.ofBytes(20));
+        properties.setMaxEntry(DataSize.ofBytes(8));
+        properties.setDirectory(directory.toString());
+        meterRegistry = new SimpleMeterRegistry();
+        outputCache = new ReportOutputCache(applicationProperties, meterRegistry);
+    }
+
+    @AfterEach
+    public void tearDown() {
+        outputCache.destroy();
+    }
+
+    @Test
+    public void keyNormalizesParameters() {
+        Map<String, Object> parameters = Collections.singletonMap("minSalary", 10.0);
+
+        assertThat(ReportOutputCache.Key.of("report", parameters, "pdf")).isEqualTo(ReportOutputCache.Key.of("report", parameters, "pdf"));
+        assertThat(ReportOutputCache.Key.of("report", parameters, "pdf")).isNotEqualTo(ReportOutputCache.Key.of("report", parameters, "csv"));
+        assertThat(ReportOutputCache.Key.of("report", parameters, "pdf"))
+            .isNotEqualTo(ReportOutputCache.Key.of("report", Collections.singletonMap("minSalary", 20.0), "pdf"));
+    }
+
+    @Test
+    public void spillToDiskAndEvict() throws IOException {
+        outputCache.put(key("a"), outputCache.getVersion(), "aaaaaa".getBytes());
+        outputCache.put(key("b"), outputCache.getVersion(), "bbbbbb".getBytes());
+
+        assertThat(meterRegistry.get(ReportOutputCache.METRIC_SIZE).tag("tier", "memory").gauge().value()).isEqualTo(6);
+        assertThat(meterRegistry.get(ReportOutputCache.METRIC_SIZE).tag("tier", "disk").gauge().value()).isEqualTo(6);
+        assertThat(read(outputCache.get(key("a")))).isEqualTo("aaaaaa");
+        assertThat(read(outputCache.get(key("b")))).isEqualTo("bbbbbb");
+
+        outputCache.put(key("c"), outputCache.getVersion(), "cccccc".getBytes());
+        outputCache.put(key("d"), outputCache.getVersion(), "dddddd".getBytes());
+        outputCache.put(key("e"), outputCache.getVersion(), "eeeeee".getBytes());
+
+        assertThat(outputCache.get(key("a"))).isEmpty();
+        assertThat(read(outputCache.get(key("e")))).isEqualTo("eeeeee");
+        assertThat(meterRegistry.get(ReportOutputCache.METRIC_SIZE).tag("tier", "disk").gauge().value()).isLessThanOrEqualTo(20);
+    }
+
+    @Test
+    public void skipLargeOutputs() throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        ReportOutputCache.Capture capture = outputCache.capture(key("large"), outputCache.getVersion(), out);
+        capture.write("too large to cache".getBytes());
+        capture.commit();
+
+        assertThat(out.toString()).isEqualTo("too large to cache");
+        assertThat(outputCache.get(key("large"))).isEmpty();
+    }
+
+    @Test
+    public void invalidateOnDataChange() throws IOException {
+        long version = outputCache.getVersion();
+        outputCache.put(key("a"), version, "aaaaaa".getBytes());
+
+        outputCache.onReportDataChanged(new ReportDataChangedEvent(Object.class));
+
+        assertThat(outputCache.get(key("a"))).isEmpty();
+        // Outputs rendered from data read before the change are not stored.
+        outputCache.put(key("a"), version, "aaaaaa".getBytes());
+        assertThat(outputCache.get(key("a"))).isEmpty();
+        outputCache.put(key("a"), outputCache.getVersion(), "bbbbbb".getBytes());
+        assertThat(read(outputCache.get(key("a")))).isEqualTo("bbbbbb");
+    }
+
+    @Test
+    public void removeExpiredOutputs() {
+        applicationProperties.getReport().getOutputCache().setTimeToLiveSeconds(-1);
+        outputCache.put(key("a"), outputCache.getVersion(), "aaaaaa".getBytes());
+        outputCache.put(key("b"), outputCache.getVersion(), "bbbbbb".getBytes());
+
+        outputCache.removeExpired();
+
+        assertThat(meterRegistry.get(ReportOutputCache.METRIC_SIZE).tag("tier", "memory").gauge().value()).isEqualTo(0);
+        assertThat(meterRegistry.get(ReportOutputCache.METRIC_SIZE).tag("tier", "disk").gauge().value()).isEqualTo(0);
+    }
+
+    @Test
+    public void countHitsAndMisses() throws IOException {
+        assertThat(outputCache.get(key("a"))).isEmpty();
+        outputCache.put(key("a"), outputCache.getVersion(), "aaaaaa".getBytes());
+        read(outputCache.get(key("a")));
+
+        assertThat(meterRegistry.get(ReportOutputCache.METRIC_REQUESTS).tag("result", "hit").counter().count()).isEqualTo(1);
+        assertThat(meterRegistry.get(ReportOutputCache.METRIC_REQUESTS).tag("result", "miss").counter().count()).isEqualTo(1);
+    }
+
+    private static ReportOutputCache.Key key(String template) {
+        return ReportOutputCache.Key.of(template, Collections.emptyMap(), "csv");
+    }
+
+    private static String read(Optional<InputStream> content) throws IOException {
+        assertThat(content).isPresent();
+        try (InputStream in = content.get()) {
+            return new String(StreamUtils.copyToByteArray(in));
+        }
+    }
+}
@@ -0,0 +1,190 @@
+package com.isoft.reporting.service.report;
+
+import com.isoft.reporting.config.ApplicationProperties;
+import com.isoft.reporting.config.ApplicationProperties.Report.Virtualizer.Mode;
+import com.isoft.reporting.service.FilledReport;
+import com.isoft.reporting.service.dto.EmployeeDTO;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import net.sf.jasperreports.engine.JRParameter;
+import net.sf.jasperreports.engine.JRPrintText;
+import net.sf.jasperreports.engine.JRVirtualizer;
+import net.sf.jasperreports.engine.JasperCompileManager;
+import net.sf.jasperreports.engine.JasperFillManager;
+import net.sf.jasperreports.engine.JasperPrint;
+import net.sf.jasperreports.engine.JasperReport;
+import net.sf.jasperreports.engine.data.JRBeanCollectionDataSource;
+import net.sf.jasperreports.engine.export.JRCsvExporter;
+import net.sf.jasperreports.export.SimpleCsvReportConfiguration;
+import net.sf.jasperreports.export.SimpleExporterInput;
+import net.sf.jasperreports.export.SimpleWriterExporterOutput;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.util.unit.DataSize;
+
+import java.io.ByteArrayOutputStream;
+import java.io.InputStream;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class ReportRunCacheTest {
+
+    @TempDir
+    public Path directory;
+
+    private ApplicationProperties applicationProperties;
+
+    private ReportVirtualizerFactory virtualizerFactory;
+
+    private SimpleMeterRegistry meterRegistry;
+
+    private ReportRunCache runCache;
+
+    private JasperReport jasperReport;
+
+    @BeforeEach
+    public void setUp() throws Exception {
+        applicationProperties = new ApplicationProperties();
+        applicationProperties.getReport().getRunCache().setDirectory(directory.toString());
+        applicationProperties.getReport().getVirtualizer().setMaxSize(2);
+        applicationProperties.getReport().getVirtualizer().setDirectory(directory.toString());
+        meterRegistry = new SimpleMeterRegistry();
+        virtualizerFactory = new ReportVirtualizerFactory(applicationProperties, meterRegistry);
+        runCache = new ReportRunCache(applicationProperties, meterRegistry);
+        try (InputStream template = getClass().getResourceAsStream("/employeeListReport.jrxml")) {
+            jasperReport = JasperCompileManager.compileReport(template);
+        }
+    }
+
+    @AfterEach
+    public void tearDown() {
+        runCache.destroy();
+    }
+
+    @Test
+    public void loadStoredRun() throws Exception {
+        String runId;
+        try (FilledReport filledReport = fill(10, null)) {
+            runId = runCache.put("employeeListReport", filledReport).orElse(null);
+        }
+
+        assertThat(runId).isNotNull();
+        Optional<ReportRunCache.Run> run = runCache.get(runId);
+        assertThat(run).isPresent();
+        assertThat(run.get().getTemplate()).isEqualTo("employeeListReport");
+        try (FilledReport filledReport = run.get().getFilledReport()) {
+            assertThat(filledReport.isVirtualized()).isFalse();
+            assertThat(texts(filledReport.getJasperPrint())).contains("Last9");
+        }
+        assertThat(meterRegistry.get(ReportRunCache.METRIC_REQUESTS).tag("result", "hit").counter().count()).isEqualTo(1);
+        assertThat(runCache.get("unknown")).isEmpty();
+        assertThat(meterRegistry.get(ReportRunCache.METRIC_REQUESTS).tag("result", "miss").counter().count()).isEqualTo(1);
+    }
+
+    @Test
+    public void loadVirtualizedRun() throws Exception {
+        String runId;
+        try (FilledReport filledReport = fill(1000, virtualizerFactory.create(Mode.GZIP))) {
+            runId = runCache.put("employeeListReport", filledReport).orElse(null);
+        }
+
+        assertThat(runId).isNotNull();
+        try (FilledReport filledReport = runCache.get(runId).map(ReportRunCache.Run::getFilledReport).orElse(null)) {
+            assertThat(filledReport).isNotNull();
+            assertThat(filledReport.getJasperPrint().getPages().size()).isGreaterThan(2);
+            assertThat(texts(filledReport.getJasperPrint())).contains("Last999");
+            assertThat(meterRegistry.get(ReportRunCache.METRIC_PAGES).counter().count())
+                .isEqualTo(filledReport.getJasperPrint().getPages().size());
+        }
+    }
+
+    @Test
+    public void exportPageRangeReadsOnlyItsPages() throws Exception {
+        String runId;
+        try (FilledReport filledReport = fill(1000, virtualizerFactory.create(Mode.GZIP))) {
+            runId = runCache.put("employeeListReport", filledReport).orElse(null);
+        }
+
+        assertThat(runId).isNotNull();
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (FilledReport filledReport = runCache.get(runId).map(ReportRunCache.Run::getFilledReport).orElse(null)) {
+            assertThat(filledReport).isNotNull();
+            assertThat(filledReport.getJasperPrint().getPages().size()).isGreaterThan(3);
+            JRCsvExporter exporter = new JRCsvExporter();
+            exporter.setExporterInput(new SimpleExporterInput(filledReport.getJasperPrint()));
+            exporter.setExporterOutput(new SimpleWriterExporterOutput(out));
+            SimpleCsvReportConfiguration configuration = new SimpleCsvReportConfiguration();
+            configuration.setStartPageIndex(1);
+            configuration.setEndPageIndex(2);
+            exporter.setConfiguration(configuration);
+            exporter.exportReport();
+        }
+        assertThat(meterRegistry.get(ReportRunCache.METRIC_PAGES).counter().count()).isEqualTo(2);
+        assertThat(out.toString("UTF-8")).contains("Last").doesNotContain("Last0").doesNotContain("Last999");
+    }
+
+    @Test
+    public void evictLeastRecentlyUsedRuns() throws Exception {
+        String first;
+        String second;
+        try (FilledReport filledReport = fill(10, null)) {
+            first = runCache.put("employeeListReport", filledReport).orElse(null);
+            long size = (long) meterRegistry.get(ReportRunCache.METRIC_SIZE).gauge().value();
+            // Room for a single run.
+            applicationProperties.getReport().getRunCache().setMaxDisk(DataSize.ofBytes(size + size / 2));
+            second = runCache.put("employeeListReport", filledReport).orElse(null);
+        }
+
+        assertThat(runCache.get(first)).isEmpty();
+        assertThat(runCache.get(second)).isPresent().hasValueSatisfying(run -> run.getFilledReport().close());
+    }
+
+    @Test
+    public void removeExpiredRuns() throws Exception {
+        applicationProperties.getReport().getRunCache().setTimeToLiveSeconds(-1);
+        String runId;
+        try (FilledReport filledReport = fill(10, null)) {
+            runId = runCache.put("employeeListReport", filledReport).orElse(null);
+        }
+
+        runCache.removeExpired();
+
+        assertThat(runCache.get(runId)).isEmpty();
+        assertThat(meterRegistry.get(ReportRunCache.METRIC_SIZE).gauge().value()).isEqualTo(0);
+    }
+
+    private FilledReport fill(int rows, JRVirtualizer virtualizer) throws Exception {
+        List<EmployeeDTO> employees = new ArrayList<>();
+        for (long i = 0; i < rows; i++) {
+            EmployeeDTO employee = new EmployeeDTO();
+            employee.setId(i);
+            employee.setFirstName("First" + i);
+            employee.setLastName("Last" + i);
+            employee.setSalary(1000.0 * i);
+            employees.add(employee);
+        }
+        Map<String, Object> params = new HashMap<>();
+        if (virtualizer != null) {
+            params.put(JRParameter.REPORT_VIRTUALIZER, virtualizer);
+        }
+        JasperPrint jasperPrint = JasperFillManager.fillReport(jasperReport, params, new JRBeanCollectionDataSource(employees));
+        return new FilledReport(jasperPrint, virtualizer);
+    }
+
+    private static List<String> texts(JasperPrint jasperPrint) {
+        List<String> texts = new ArrayList<>();
+        jasperPrint.getPages().forEach(page -> page.getElements().forEach(element -> {
+            if (element instanceof JRPrintText) {
+                texts.add(((JRPrintText) element).getFullText());
+            }
+        }));
+        return texts;
+    }
+}
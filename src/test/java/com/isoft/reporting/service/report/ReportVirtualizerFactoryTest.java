@@ -0,0 +1,99 @@
+package com.isoft.reporting.service.report;
+
+import com.isoft.reporting.config.ApplicationProperties;
+import com.isoft.reporting.config.ApplicationProperties.Report.Virtualizer.Mode;
+import com.isoft.reporting.service.dto.EmployeeDTO;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import net.sf.jasperreports.engine.JRParameter;
+import net.sf.jasperreports.engine.JRVirtualizer;
+import net.sf.jasperreports.engine.JasperCompileManager;
+import net.sf.jasperreports.engine.JasperFillManager;
+import net.sf.jasperreports.engine.JasperPrint;
+import net.sf.jasperreports.engine.JasperReport;
+import net.sf.jasperreports.engine.data.JRBeanCollectionDataSource;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.fail;
+
+public class ReportVirtualizerFactoryTest {
+
+    private ApplicationProperties applicationProperties;
+
+    private SimpleMeterRegistry meterRegistry;
+
+    private ReportVirtualizerFactory virtualizerFactory;
+
+    private JasperReport jasperReport;
+
+    @BeforeEach
+    public void setUp() throws Exception {
+        applicationProperties = new ApplicationProperties();
+        applicationProperties.getReport().getVirtualizer().setRowThreshold(100);
+        applicationProperties.getReport().getVirtualizer().setMaxSize(2);
+        meterRegistry = new SimpleMeterRegistry();
+        virtualizerFactory = new ReportVirtualizerFactory(applicationProperties, meterRegistry);
+        try (InputStream template = getClass().getResourceAsStream("/employeeListReport.jrxml")) {
+            jasperReport = JasperCompileManager.compileReport(template);
+        }
+    }
+
+    @Test
+    public void selectModeFromRowThreshold() {
+        assertThat(virtualizerFactory.selectMode(jasperReport, () -> 100)).isEqualTo(Mode.NONE);
+        assertThat(virtualizerFactory.selectMode(jasperReport, () -> -1)).isEqualTo(Mode.NONE);
+        assertThat(virtualizerFactory.selectMode(jasperReport, () -> 101)).isEqualTo(Mode.SWAP_FILE);
+
+        applicationProperties.getReport().getVirtualizer().setRowThreshold(0);
+        assertThat(virtualizerFactory.selectMode(jasperReport, () -> 1000000)).isEqualTo(Mode.NONE);
+    }
+
+    @Test
+    public void selectModeFromReportProperty() {
+        jasperReport.setProperty(ReportVirtualizerFactory.PROPERTY_VIRTUALIZER, "gzip");
+
+        assertThat(virtualizerFactory.selectMode(jasperReport, () -> fail("Rows should not be counted"))).isEqualTo(Mode.GZIP);
+
+        jasperReport.setProperty(ReportVirtualizerFactory.PROPERTY_VIRTUALIZER, "none");
+
+        assertThat(virtualizerFactory.selectMode(jasperReport, () -> 1000000)).isEqualTo(Mode.NONE);
+    }
+
+    @Test
+    public void fillVirtualizedReport() throws Exception {
+        List<EmployeeDTO> employees = new ArrayList<>();
+        for (long i = 0; i < 1000; i++) {
+            EmployeeDTO employee = new EmployeeDTO();
+            employee.setId(i);
+            employee.setFirstName("First" + i);
+            employee.setLastName("Last" + i);
+            employee.setSalary(1000.0 * i);
+            employees.add(employee);
+        }
+        JRVirtualizer virtualizer = virtualizerFactory.create(Mode.GZIP);
+        Map<String, Object> params = new HashMap<>();
+        params.put(JRParameter.REPORT_VIRTUALIZER, virtualizer);
+        try {
+            JasperPrint jasperPrint = JasperFillManager.fillReport(jasperReport, params, new JRBeanCollectionDataSource(employees));
+
+            assertThat(jasperPrint.getPages().size()).isGreaterThan(2);
+            assertThat(meterRegistry.get(ReportVirtualizerFactory.METRIC_PAGES).tag("operation", "out").counter().count()).isGreaterThan(0);
+            assertThat(jasperPrint.getPages().get(0).getElements().get(0)).isNotNull();
+            assertThat(meterRegistry.get(ReportVirtualizerFactory.METRIC_PAGES).tag("operation", "in").counter().count()).isGreaterThan(0);
+        } finally {
+            virtualizer.cleanup();
+        }
+    }
+
+    @Test
+    public void createNoVirtualizer() {
+        assertThat(virtualizerFactory.create(Mode.NONE)).isNull();
+    }
+}
@@ -0,0 +1,37 @@
+package com.isoft.reporting.service.report;
+
+import com.isoft.reporting.config.ApplicationProperties;
+import com.isoft.reporting.service.ReportTemplateRegistry;
+import net.sf.jasperreports.repo.InputStreamResource;
+import net.sf.jasperreports.repo.ReportResource;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class TemplateRepositoryServiceTest {
+
+    private TemplateRepositoryService repositoryService;
+
+    @BeforeEach
+    public void setUp() {
+        repositoryService = new TemplateRepositoryService(new ReportTemplateRegistry(new ApplicationProperties()));
+    }
+
+    @Test
+    public void getReportByLogicalName() {
+        ReportResource resource = repositoryService.getResource("employeeEmailReport", ReportResource.class);
+
+        assertThat(resource.getName()).isEqualTo("employeeEmailReport");
+        assertThat(resource.getReport()).isNotNull();
+        assertThat(repositoryService.getResource("employeeEmailReport.jasper", ReportResource.class).getReport())
+            .isSameAs(resource.getReport());
+    }
+
+    @Test
+    public void getUnknownResource() {
+        assertThat(repositoryService.getResource("unknownReport", ReportResource.class)).isNull();
+        assertThat(repositoryService.getResource("../employeeEmailReport", ReportResource.class)).isNull();
+        assertThat(repositoryService.getResource("employeeEmailReport", InputStreamResource.class)).isNull();
+    }
+}
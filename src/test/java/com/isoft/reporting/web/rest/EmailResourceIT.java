@@ -11,20 +11,31 @@ import com.isoft.reporting.service.mapper.EmailMapper;
 import com.isoft.reporting.service.dto.EmailCriteria;
 import com.isoft.reporting.service.EmailQueryService;
 
+import org.hibernate.Hibernate;
+import org.hibernate.Session;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.security.test.context.support.WithMockUser;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
 import org.springframework.transaction.annotation.Transactional;
 import javax.persistence.EntityManager;
+import java.net.URI;
 import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.containsString;
 import static org.hamcrest.Matchers.hasItem;
+import static org.hamcrest.Matchers.hasSize;
 import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.csrf;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
@@ -143,6 +154,92 @@ public class EmailResourceIT {
             .andExpect(jsonPath("$.[*].address").value(hasItem(DEFAULT_ADDRESS)));
     }
     
+    @Test
+    @Transactional
+    public void getAllEmailsAfterCursor() throws Exception {
+        // Initialize the database
+        emailRepository.saveAndFlush(email);
+        Email other = emailRepository.saveAndFlush(new Email().address(UPDATED_ADDRESS));
+
+        // Get the emails one by one, in descending id order
+        String link = restEmailMockMvc.perform(get("/api/emails?sort=id,desc&size=1&after="))
+            .andExpect(status().isOk())
+            .andExpect(header().doesNotExist("X-Total-Count"))
+            .andExpect(jsonPath("$.[*].id").value(contains(other.getId().intValue())))
+            .andReturn().getResponse().getHeader(HttpHeaders.LINK);
+        Matcher next = Pattern.compile("<([^>]*)>; rel=\"next\"").matcher(link);
+        assertThat(next.find()).isTrue();
+
+        restEmailMockMvc.perform(get(URI.create(next.group(1))))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.[0].id").value(email.getId().intValue()));
+    }
+
+    @Test
+    @Transactional
+    public void getAllEmailsWithoutTotal() throws Exception {
+        // Initialize the database
+        emailRepository.saveAndFlush(email);
+        emailRepository.saveAndFlush(new Email().address(UPDATED_ADDRESS));
+
+        // Get the first page, without counting the emails
+        restEmailMockMvc.perform(get("/api/emails?sort=id,desc&size=1&withTotal=false"))
+            .andExpect(status().isOk())
+            .andExpect(header().doesNotExist("X-Total-Count"))
+            .andExpect(header().string(HttpHeaders.LINK, containsString("rel=\"next\"")))
+            .andExpect(jsonPath("$").value(hasSize(1)));
+    }
+
+    @Test
+    @Transactional
+    public void getAllEmailsWithoutLoadingEmployees() throws Exception {
+        // Initialize the database
+        Employee employee = EmployeeResourceIT.createEntity(em);
+        em.persist(employee);
+        email.setEmployee(employee);
+        emailRepository.saveAndFlush(email);
+        em.clear();
+
+        List<EmailDTO> emails = emailQueryService.findByCriteria(new EmailCriteria(), PageRequest.of(0, 20)).getContent();
+
+        // The employee ids are read from the emails, the employees stay unloaded proxies
+        assertThat(emails).extracting(EmailDTO::getEmployeeId).contains(employee.getId());
+        assertThat(Hibernate.isInitialized(em.getReference(Employee.class, employee.getId()))).isFalse();
+    }
+
+    @Test
+    @Transactional
+    public void getAllEmailsWithoutLoadingEntities() throws Exception {
+        // Initialize the database, with an email without employee
+        emailRepository.saveAndFlush(email);
+        em.clear();
+
+        List<EmailDTO> found = emailQueryService.findByCriteria(new EmailCriteria(), PageRequest.of(0, 20)).getContent();
+        List<EmailDTO> all = emailService.findAll(PageRequest.of(0, 20)).getContent();
+
+        // The DTOs are read with projections, nothing is put in the persistence context
+        assertThat(found).extracting(EmailDTO::getId).contains(email.getId());
+        assertThat(all).extracting(EmailDTO::getId).contains(email.getId());
+        assertThat(em.unwrap(Session.class).getStatistics().getEntityCount()).isZero();
+    }
+
+    @Test
+    public void streamEmails() throws Exception {
+        // Initialize the database, outside of the test transaction since the stream is read by another thread
+        EmailDTO saved = emailService.save(emailMapper.toDto(email));
+        try {
+            MvcResult result = restEmailMockMvc.perform(get("/api/emails/stream?id.equals=" + saved.getId()))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+            restEmailMockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType("application/x-ndjson"))
+                .andExpect(content().string("{\"id\":" + saved.getId() + ",\"address\":\"" + DEFAULT_ADDRESS + "\",\"employeeId\":null}\n"));
+        } finally {
+            emailService.delete(saved.getId());
+        }
+    }
+
     @Test
     @Transactional
     public void getEmail() throws Exception {
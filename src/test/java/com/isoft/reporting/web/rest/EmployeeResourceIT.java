@@ -10,20 +10,33 @@ import com.isoft.reporting.service.mapper.EmployeeMapper;
 import com.isoft.reporting.service.dto.EmployeeCriteria;
 import com.isoft.reporting.service.EmployeeQueryService;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.hibernate.Session;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.security.test.context.support.WithMockUser;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
 import org.springframework.transaction.annotation.Transactional;
 import javax.persistence.EntityManager;
+import java.net.URI;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.containsString;
 import static org.hamcrest.Matchers.hasItem;
+import static org.hamcrest.Matchers.not;
 import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.csrf;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
@@ -157,6 +170,118 @@ public class EmployeeResourceIT {
             .andExpect(jsonPath("$.[*].salary").value(hasItem(DEFAULT_SALARY.doubleValue())));
     }
     
+    @Test
+    @Transactional
+    public void getAllEmployeesWithoutLoadingEntities() throws Exception {
+        // Initialize the database
+        employeeRepository.saveAndFlush(employee);
+        em.clear();
+
+        List<EmployeeDTO> found = employeeQueryService.findByCriteria(new EmployeeCriteria(), PageRequest.of(0, 20, Sort.by("lastName"))).getContent();
+        List<EmployeeDTO> all = employeeService.findAll(PageRequest.of(0, 20, Sort.by("lastName"))).getContent();
+
+        // The DTOs are read with projections, nothing is put in the persistence context
+        assertThat(found).extracting(EmployeeDTO::getId).contains(employee.getId());
+        assertThat(all).extracting(EmployeeDTO::getLastName).contains(DEFAULT_LAST_NAME);
+        assertThat(em.unwrap(Session.class).getStatistics().getEntityCount()).isZero();
+    }
+
+    @Test
+    @Transactional
+    public void getAllEmployeesWithoutTotal() throws Exception {
+        // Initialize the database
+        employeeRepository.saveAndFlush(employee);
+
+        // Get the last page, without counting the employees
+        restEmployeeMockMvc.perform(get("/api/employees?id.equals=" + employee.getId() + "&withTotal=false"))
+            .andExpect(status().isOk())
+            .andExpect(header().doesNotExist("X-Total-Count"))
+            .andExpect(header().doesNotExist("X-Total-Count-Estimate"))
+            .andExpect(header().string(HttpHeaders.LINK, not(containsString("rel=\"next\""))))
+            .andExpect(jsonPath("$.[*].id").value(contains(employee.getId().intValue())));
+    }
+
+    @Test
+    @Transactional
+    public void getAllEmployeesAfterCursor() throws Exception {
+        // Initialize the database, with an employee without a last name
+        employeeRepository.saveAndFlush(new Employee().firstName("Keyset").lastName("Beta"));
+        employeeRepository.saveAndFlush(new Employee().firstName("Keyset").lastName("Alpha"));
+        employeeRepository.saveAndFlush(new Employee().firstName("Keyset"));
+
+        // Get the first page, employees without a last name coming first
+        String link = restEmployeeMockMvc.perform(get("/api/employees?firstName.equals=Keyset&sort=lastName,asc&size=2&after="))
+            .andExpect(status().isOk())
+            .andExpect(header().doesNotExist("X-Total-Count"))
+            .andExpect(jsonPath("$.[*].lastName").value(contains(null, "Alpha")))
+            .andReturn().getResponse().getHeader(HttpHeaders.LINK);
+        Matcher next = Pattern.compile("<([^>]*)>; rel=\"next\"").matcher(link);
+        assertThat(next.find()).isTrue();
+
+        // Get the next page, which is the last one
+        restEmployeeMockMvc.perform(get(URI.create(next.group(1))))
+            .andExpect(status().isOk())
+            .andExpect(header().string(HttpHeaders.LINK, not(containsString("rel=\"next\""))))
+            .andExpect(jsonPath("$.[*].lastName").value(contains("Beta")));
+    }
+
+    @Test
+    @Transactional
+    public void getAllEmployeesAfterCursorInDescendingOrder() throws Exception {
+        // Initialize the database, with an employee without a last name
+        employeeRepository.saveAndFlush(new Employee().firstName("Keyset").lastName("Beta"));
+        employeeRepository.saveAndFlush(new Employee().firstName("Keyset"));
+        employeeRepository.saveAndFlush(new Employee().firstName("Keyset").lastName("Alpha"));
+
+        // Get the first page, employees without a last name coming last
+        String link = restEmployeeMockMvc.perform(get("/api/employees?firstName.equals=Keyset&sort=lastName,desc&size=1&after="))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.[*].lastName").value(contains("Beta")))
+            .andReturn().getResponse().getHeader(HttpHeaders.LINK);
+        Matcher next = Pattern.compile("<([^>]*)>; rel=\"next\"").matcher(link);
+        assertThat(next.find()).isTrue();
+
+        // Get the next page, reaching the employee without a last name
+        restEmployeeMockMvc.perform(get(URI.create(next.group(1).replace("size=1", "size=2"))))
+            .andExpect(status().isOk())
+            .andExpect(header().string(HttpHeaders.LINK, not(containsString("rel=\"next\""))))
+            .andExpect(jsonPath("$.[*].lastName").value(contains("Alpha", null)));
+    }
+
+    @Test
+    @Transactional
+    public void getAllEmployeesAfterInvalidCursor() throws Exception {
+        restEmployeeMockMvc.perform(get("/api/employees?after=invalid"))
+            .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    public void streamEmployees() throws Exception {
+        // Initialize the database, outside of the test transaction since the stream is read by another thread
+        EmployeeDTO first = employeeService.save(employeeMapper.toDto(new Employee().firstName("Stream").lastName("First")));
+        EmployeeDTO second = employeeService.save(employeeMapper.toDto(new Employee().firstName("Stream").lastName("Second")));
+        try {
+            MvcResult result = restEmployeeMockMvc.perform(get("/api/employees/stream?firstName.equals=Stream"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+            String body = restEmployeeMockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType("application/x-ndjson"))
+                .andReturn().getResponse().getContentAsString();
+
+            // One employee per line
+            ObjectMapper mapper = new ObjectMapper();
+            List<String> lastNames = new ArrayList<>();
+            for (String line : body.split("\n")) {
+                lastNames.add(mapper.readValue(line, EmployeeDTO.class).getLastName());
+            }
+            assertThat(lastNames).containsExactlyInAnyOrder("First", "Second");
+        } finally {
+            employeeService.delete(first.getId());
+            employeeService.delete(second.getId());
+        }
+    }
+
     @Test
     @Transactional
     public void getEmployee() throws Exception {
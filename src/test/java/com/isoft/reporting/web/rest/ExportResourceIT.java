@@ -0,0 +1,177 @@
+package com.isoft.reporting.web.rest;
+
+import com.isoft.reporting.ReportingApp;
+import com.isoft.reporting.config.ApplicationProperties;
+import com.isoft.reporting.config.SecurityBeanOverrideConfiguration;
+import com.isoft.reporting.service.EmailService;
+import com.isoft.reporting.service.EmployeeService;
+import com.isoft.reporting.service.dto.EmailDTO;
+import com.isoft.reporting.service.dto.EmployeeDTO;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import java.io.ByteArrayInputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+/**
+ * Integration tests for the {@link ExportResource} REST controller.
+ */
+@SpringBootTest(classes = { SecurityBeanOverrideConfiguration.class, ReportingApp.class })
+@AutoConfigureMockMvc
+@WithMockUser
+public class ExportResourceIT {
+
+    @Autowired
+    private MockMvc restExportMockMvc;
+
+    @Autowired
+    private EmployeeService employeeService;
+
+    @Autowired
+    private EmailService emailService;
+
+    @Autowired
+    private ApplicationProperties applicationProperties;
+
+    @Test
+    public void exportEmployees() throws Exception {
+        List<EmployeeDTO> employees = new ArrayList<>();
+        int batchSize = applicationProperties.getExport().getBatchSize();
+        // Several batches, the last one full.
+        applicationProperties.getExport().setBatchSize(2);
+        try {
+            for (int i = 0; i < 4; i++) {
+                employees.add(saveEmployee("Exported" + i, "Export"));
+            }
+
+            String csv = getContent("/api/exports/employees?lastName.equals=Export");
+
+            assertThat(csv.split("\r\n")).containsExactly(
+                "id,firstName,lastName,salary",
+                employees.get(0).getId() + ",Exported0,Export,1000.0",
+                employees.get(1).getId() + ",Exported1,Export,1000.0",
+                employees.get(2).getId() + ",Exported2,Export,1000.0",
+                employees.get(3).getId() + ",Exported3,Export,1000.0"
+            );
+        } finally {
+            applicationProperties.getExport().setBatchSize(batchSize);
+            employees.forEach(employee -> employeeService.delete(employee.getId()));
+        }
+    }
+
+    @Test
+    public void exportEmailsWithOptions() throws Exception {
+        EmployeeDTO employee = saveEmployee("Mail", "Exporter");
+        EmailDTO email = new EmailDTO();
+        email.setAddress("mail.exporter@example.com");
+        email.setEmployeeId(employee.getId());
+        email = emailService.save(email);
+        try {
+            String csv = getContent("/api/exports/emails?address.equals=mail.exporter@example.com&delimiter=tab&quoteMode=ALL");
+
+            assertThat(csv).isEqualTo("\"id\"\t\"address\"\t\"employeeId\"\r\n"
+                + "\"" + email.getId() + "\"\t\"mail.exporter@example.com\"\t\"" + employee.getId() + "\"\r\n");
+        } finally {
+            emailService.delete(email.getId());
+            employeeService.delete(employee.getId());
+        }
+    }
+
+    @Test
+    public void exportEmployeesAsXlsx() throws Exception {
+        MvcResult result = restExportMockMvc.perform(get("/api/exports/employees?format=xlsx"))
+            .andExpect(request().asyncStarted())
+            .andReturn();
+        byte[] workbook = restExportMockMvc.perform(asyncDispatch(result))
+            .andExpect(status().isOk())
+            .andExpect(content().contentType("application/vnd.openxmlformats-officedocument.spreadsheetml.sheet"))
+            .andExpect(header().string("Content-Disposition", "attachment; filename=\"employees.xlsx\""))
+            .andReturn().getResponse().getContentAsByteArray();
+
+        List<String> entries = new ArrayList<>();
+        try (ZipInputStream zip = new ZipInputStream(new ByteArrayInputStream(workbook))) {
+            for (ZipEntry entry = zip.getNextEntry(); entry != null; entry = zip.getNextEntry()) {
+                entries.add(entry.getName());
+            }
+        }
+        assertThat(entries).contains("xl/workbook.xml", "xl/worksheets/sheet1.xml");
+    }
+
+    @Test
+    public void exportEmailsAsArrow() throws Exception {
+        MvcResult result = restExportMockMvc.perform(get("/api/exports/emails?format=arrow"))
+            .andExpect(request().asyncStarted())
+            .andReturn();
+        byte[] stream = restExportMockMvc.perform(asyncDispatch(result))
+            .andExpect(status().isOk())
+            .andExpect(content().contentType("application/vnd.apache.arrow.stream"))
+            .andExpect(header().string("Content-Disposition", "attachment; filename=\"emails.arrows\""))
+            .andReturn().getResponse().getContentAsByteArray();
+
+        // The stream starts with the schema and ends with the end-of-stream marker.
+        ByteBuffer buffer = ByteBuffer.wrap(stream).order(ByteOrder.LITTLE_ENDIAN);
+        assertThat(buffer.getInt(0)).isEqualTo(0xFFFFFFFF);
+        assertThat(buffer.getInt(stream.length - 8)).isEqualTo(0xFFFFFFFF);
+        assertThat(buffer.getInt(stream.length - 4)).isEqualTo(0);
+    }
+
+    @Test
+    public void exportOutlivesDefaultAsyncTimeout() throws Exception {
+        MvcResult result = restExportMockMvc.perform(get("/api/exports/employees"))
+            .andExpect(request().asyncStarted())
+            .andReturn();
+
+        // Servlet containers, Undertow included, otherwise time asynchronous requests out after about 30 seconds.
+        assertThat(result.getRequest().getAsyncContext().getTimeout())
+            .isEqualTo(applicationProperties.getExport().getStreamTimeout().toMillis())
+            .isGreaterThan(30000L);
+        restExportMockMvc.perform(asyncDispatch(result))
+            .andExpect(status().isOk());
+    }
+
+    @Test
+    public void exportWithUnknownFormat() throws Exception {
+        restExportMockMvc.perform(get("/api/exports/emails?format=doc"))
+            .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    public void exportWithInvalidDelimiter() throws Exception {
+        restExportMockMvc.perform(get("/api/exports/employees?delimiter=;;"))
+            .andExpect(status().isBadRequest());
+    }
+
+    private EmployeeDTO saveEmployee(String firstName, String lastName) {
+        EmployeeDTO employee = new EmployeeDTO();
+        employee.setFirstName(firstName);
+        employee.setLastName(lastName);
+        employee.setSalary(1000.0);
+        return employeeService.save(employee);
+    }
+
+    private String getContent(String url) throws Exception {
+        MvcResult result = restExportMockMvc.perform(get(url))
+            .andExpect(request().asyncStarted())
+            .andReturn();
+        return restExportMockMvc.perform(asyncDispatch(result))
+            .andExpect(status().isOk())
+            .andExpect(content().contentTypeCompatibleWith("text/csv"))
+            .andReturn().getResponse().getContentAsString();
+    }
+}
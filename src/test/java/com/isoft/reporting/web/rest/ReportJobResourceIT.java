@@ -0,0 +1,111 @@
+package com.isoft.reporting.web.rest;
+
+import com.isoft.reporting.ReportingApp;
+import com.isoft.reporting.config.SecurityBeanOverrideConfiguration;
+import com.isoft.reporting.service.ReportJobService;
+import com.isoft.reporting.service.dto.ReportJobDTO;
+import com.isoft.reporting.service.dto.ReportRequestDTO;
+
+import com.jayway.jsonpath.JsonPath;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import java.util.Collections;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.csrf;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+/**
+ * Integration tests for the {@link ReportJobResource} REST controller.
+ */
+@SpringBootTest(classes = { SecurityBeanOverrideConfiguration.class, ReportingApp.class })
+@AutoConfigureMockMvc
+@WithMockUser
+public class ReportJobResourceIT {
+
+    private static final String TEMPLATE = "employeeReport";
+
+    @Autowired
+    private ReportJobService reportJobService;
+
+    @Autowired
+    private MockMvc restReportJobMockMvc;
+
+    @Test
+    public void submitReportJob() throws Exception {
+        ReportRequestDTO request = new ReportRequestDTO();
+        request.setTemplate(TEMPLATE);
+        request.setFormats(Collections.singletonList("csv"));
+        request.getParameters().put("minSalary", 0);
+
+        MvcResult result = restReportJobMockMvc.perform(post("/api/report-jobs").with(csrf())
+            .contentType(MediaType.APPLICATION_JSON)
+            .content(TestUtil.convertObjectToJsonBytes(request)))
+            .andExpect(status().isAccepted())
+            .andExpect(header().exists("Location"))
+            .andExpect(jsonPath("$.template").value(TEMPLATE))
+            .andReturn();
+        String id = JsonPath.read(result.getResponse().getContentAsString(), "$.id");
+
+        assertThat(awaitJob(id).getStatus()).isEqualTo(ReportJobDTO.Status.COMPLETED);
+
+        restReportJobMockMvc.perform(get("/api/report-jobs/{id}", id))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.status").value(ReportJobDTO.Status.COMPLETED.toString()));
+        restReportJobMockMvc.perform(get("/api/report-jobs/{id}/output?format=csv", id))
+            .andExpect(status().isOk())
+            .andExpect(content().contentTypeCompatibleWith("text/csv"));
+        restReportJobMockMvc.perform(get("/api/report-jobs/{id}/output?format=pdf", id))
+            .andExpect(status().isNotFound());
+    }
+
+    @Test
+    public void submitReportJobWithUnknownTemplate() throws Exception {
+        ReportRequestDTO request = new ReportRequestDTO();
+        request.setTemplate("../unknown");
+
+        restReportJobMockMvc.perform(post("/api/report-jobs").with(csrf())
+            .contentType(MediaType.APPLICATION_JSON)
+            .content(TestUtil.convertObjectToJsonBytes(request)))
+            .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    public void submitReportJobWithUnknownFormat() throws Exception {
+        ReportRequestDTO request = new ReportRequestDTO();
+        request.setTemplate(TEMPLATE);
+        request.setFormats(Collections.singletonList("doc"));
+
+        restReportJobMockMvc.perform(post("/api/report-jobs").with(csrf())
+            .contentType(MediaType.APPLICATION_JSON)
+            .content(TestUtil.convertObjectToJsonBytes(request)))
+            .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    public void getNonExistingReportJob() throws Exception {
+        restReportJobMockMvc.perform(get("/api/report-jobs/{id}", "unknown"))
+            .andExpect(status().isNotFound());
+        restReportJobMockMvc.perform(get("/api/report-jobs/{id}/output", "unknown"))
+            .andExpect(status().isNotFound());
+    }
+
+    private ReportJobDTO awaitJob(String id) throws InterruptedException {
+        for (int i = 0; i < 300; i++) {
+            ReportJobDTO job = reportJobService.findOne(id).orElseThrow(IllegalStateException::new);
+            if (job.getStatus() == ReportJobDTO.Status.COMPLETED || job.getStatus() == ReportJobDTO.Status.FAILED) {
+                return job;
+            }
+            Thread.sleep(100);
+        }
+        throw new IllegalStateException("Report job did not finish: " + id);
+    }
+}
@@ -0,0 +1,220 @@
+package com.isoft.reporting.web.rest;
+
+import com.isoft.reporting.ReportingApp;
+import com.isoft.reporting.config.SecurityBeanOverrideConfiguration;
+import com.isoft.reporting.service.EmployeeService;
+import com.isoft.reporting.service.dto.EmployeeDTO;
+import com.isoft.reporting.service.report.ReportOutputCache;
+
+import io.micrometer.core.instrument.MeterRegistry;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import java.io.ByteArrayInputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+/**
+ * Integration tests for the {@link ReportResource} REST controller.
+ */
+@SpringBootTest(classes = { SecurityBeanOverrideConfiguration.class, ReportingApp.class })
+@AutoConfigureMockMvc
+@WithMockUser
+public class ReportResourceIT {
+
+    private static final String TEMPLATE = "employeeReport";
+
+    @Autowired
+    private MockMvc restReportMockMvc;
+
+    @Autowired
+    private EmployeeService employeeService;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Test
+    public void getReport() throws Exception {
+        MvcResult result = restReportMockMvc.perform(get("/api/reports/{template}?format=csv&minSalary=0", TEMPLATE))
+            .andExpect(request().asyncStarted())
+            .andReturn();
+
+        restReportMockMvc.perform(asyncDispatch(result))
+            .andExpect(status().isOk())
+            .andExpect(content().contentTypeCompatibleWith("text/csv"))
+            .andExpect(header().string("Content-Disposition", "inline; filename=\"employeeReport.csv\""))
+            .andExpect(header().doesNotExist(ReportResource.HEADER_REPORT_RUN));
+    }
+
+    @Test
+    public void getReportWithAcceptHeader() throws Exception {
+        MvcResult result = restReportMockMvc.perform(get("/api/reports/{template}?minSalary=0", TEMPLATE).accept("text/html"))
+            .andExpect(request().asyncStarted())
+            .andReturn();
+
+        restReportMockMvc.perform(asyncDispatch(result))
+            .andExpect(status().isOk())
+            .andExpect(content().contentTypeCompatibleWith(MediaType.TEXT_HTML));
+    }
+
+    @Test
+    public void getReportWithUnacceptableFormat() throws Exception {
+        restReportMockMvc.perform(get("/api/reports/{template}", TEMPLATE).accept(MediaType.APPLICATION_JSON))
+            .andExpect(status().isNotAcceptable());
+    }
+
+    @Test
+    public void getReportInSeveralFormats() throws Exception {
+        MvcResult result = restReportMockMvc.perform(get("/api/reports/{template}?format=csv,html&minSalary=0", TEMPLATE))
+            .andExpect(request().asyncStarted())
+            .andReturn();
+
+        byte[] archive = restReportMockMvc.perform(asyncDispatch(result))
+            .andExpect(status().isOk())
+            .andExpect(content().contentType("application/zip"))
+            .andReturn().getResponse().getContentAsByteArray();
+
+        List<String> entries = new ArrayList<>();
+        try (ZipInputStream zip = new ZipInputStream(new ByteArrayInputStream(archive))) {
+            for (ZipEntry entry = zip.getNextEntry(); entry != null; entry = zip.getNextEntry()) {
+                entries.add(entry.getName());
+            }
+        }
+        assertThat(entries).containsExactly("employeeReport.csv", "employeeReport.html");
+    }
+
+    @Test
+    public void getCachedReport() throws Exception {
+        String url = "/api/reports/{template}?format=csv&minSalary=0&lastName.equals=Cached";
+        String report = getContent(url);
+        double hits = meterRegistry.get(ReportOutputCache.METRIC_REQUESTS).tag("result", "hit").counter().count();
+
+        assertThat(getContent(url)).isEqualTo(report);
+        assertThat(meterRegistry.get(ReportOutputCache.METRIC_REQUESTS).tag("result", "hit").counter().count()).isEqualTo(hits + 1);
+
+        EmployeeDTO employee = new EmployeeDTO();
+        employee.setFirstName("Carl");
+        employee.setLastName("Cached");
+        employee.setSalary(1000.0);
+        employee = employeeService.save(employee);
+        try {
+            assertThat(getContent(url)).contains("Carl");
+        } finally {
+            employeeService.delete(employee.getId());
+        }
+    }
+
+    @Test
+    public void getReportRun() throws Exception {
+        String runId = fillReportRun("lastName.equals=Run");
+
+        MvcResult result = restReportMockMvc.perform(get("/api/report-runs/{id}?format=html", runId))
+            .andExpect(request().asyncStarted())
+            .andReturn();
+        restReportMockMvc.perform(asyncDispatch(result))
+            .andExpect(status().isOk())
+            .andExpect(content().contentTypeCompatibleWith(MediaType.TEXT_HTML))
+            .andExpect(header().string("Content-Disposition", "inline; filename=\"employeeReport.html\""));
+    }
+
+    @Test
+    public void fillReportRunOfCachedReport() throws Exception {
+        String first = fillReportRun("lastName.equals=Again");
+        String second = fillReportRun("lastName.equals=Again");
+        assertThat(second).isNotEqualTo(first);
+
+        first = fillReportRun("csv,html", "lastName.equals=Again");
+        second = fillReportRun("csv,html", "lastName.equals=Again");
+        assertThat(second).isNotEqualTo(first);
+    }
+
+    @Test
+    public void getReportRunPages() throws Exception {
+        EmployeeDTO employee = new EmployeeDTO();
+        employee.setFirstName("Paula");
+        employee.setLastName("Pages");
+        employee.setSalary(1000.0);
+        employee = employeeService.save(employee);
+        try {
+            String runId = fillReportRun("lastName.equals=Pages");
+
+            MvcResult result = restReportMockMvc.perform(get("/api/report-runs/{id}/pages?from=1&to=5", runId))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+            String pdf = restReportMockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(MediaType.APPLICATION_PDF))
+                .andExpect(header().string(ReportResource.HEADER_PAGE_COUNT, "1"))
+                .andReturn().getResponse().getContentAsString();
+            assertThat(pdf).startsWith("%PDF");
+
+            restReportMockMvc.perform(get("/api/report-runs/{id}/pages?from=2", runId))
+                .andExpect(status().isBadRequest());
+            restReportMockMvc.perform(get("/api/report-runs/{id}/pages?from=0", runId))
+                .andExpect(status().isBadRequest());
+        } finally {
+            employeeService.delete(employee.getId());
+        }
+    }
+
+    @Test
+    public void getUnknownReportRun() throws Exception {
+        restReportMockMvc.perform(get("/api/report-runs/{id}?format=csv", "unknown"))
+            .andExpect(status().isNotFound());
+    }
+
+    @Test
+    public void getReportWithUnknownTemplate() throws Exception {
+        restReportMockMvc.perform(get("/api/reports/{template}", "unknown"))
+            .andExpect(status().isNotFound());
+    }
+
+    @Test
+    public void getReportWithUnknownFormat() throws Exception {
+        restReportMockMvc.perform(get("/api/reports/{template}?format=doc", TEMPLATE))
+            .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    public void getReportWithInvalidParameter() throws Exception {
+        restReportMockMvc.perform(get("/api/reports/{template}?minSalary=abc", TEMPLATE))
+            .andExpect(status().isBadRequest());
+    }
+
+    private String fillReportRun(String parameters) throws Exception {
+        return fillReportRun("csv", parameters);
+    }
+
+    private String fillReportRun(String format, String parameters) throws Exception {
+        MvcResult result = restReportMockMvc.perform(get("/api/reports/{template}?format=" + format + "&minSalary=0&keepRun=true&" + parameters, TEMPLATE))
+            .andExpect(request().asyncStarted())
+            .andReturn();
+        return restReportMockMvc.perform(asyncDispatch(result))
+            .andExpect(status().isOk())
+            .andExpect(header().exists(ReportResource.HEADER_REPORT_RUN))
+            .andReturn().getResponse().getHeader(ReportResource.HEADER_REPORT_RUN);
+    }
+
+    private String getContent(String url) throws Exception {
+        MvcResult result = restReportMockMvc.perform(get(url, TEMPLATE))
+            .andExpect(request().asyncStarted())
+            .andReturn();
+        return restReportMockMvc.perform(asyncDispatch(result))
+            .andExpect(status().isOk())
+            .andReturn().getResponse().getContentAsString();
+    }
+}
@@ -1,5 +1,6 @@
 package com.isoft.reporting.web.rest.errors;
 
+import com.isoft.reporting.service.ReportRejectedException;
 import javax.validation.Valid;
 import javax.validation.constraints.NotNull;
 import org.springframework.dao.ConcurrencyFailureException;
@@ -17,6 +18,11 @@ public class ExceptionTranslatorTestController {
         throw new ConcurrencyFailureException("test concurrency failure");
     }
 
+    @GetMapping("/report-rejected")
+    public void reportRejected() {
+        throw new ReportRejectedException("test report rejected", 10);
+    }
+
     @PostMapping("/method-argument")
     public void methodArgument(@Valid @RequestBody TestDTO testDTO) {}
 